@@ -2,6 +2,7 @@ import neuralnet.Model;
 import neuralnet.activations.ActivationType;
 import neuralnet.activations.OutputActivationType;
 import neuralnet.costs.CostType;
+import neuralnet.data.MappedDataset;
 import neuralnet.initializers.HeInitialization;
 import neuralnet.layers.Convolutional;
 import neuralnet.layers.Dense;
@@ -9,22 +10,11 @@ import neuralnet.layers.Dropout;
 import neuralnet.layers.Pooling;
 import neuralnet.optimizers.UpdaterType;
 import neuralnet.schedules.CosineRestart;
-import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
 
 public class MNIST {
-	private static List<int[][]> readImages(String path) {
-		throw new NotImplementedException();
-	}
-
-	private static int[] readLabels(String path) {
-		throw new NotImplementedException();
-	}
-
-	public static void train(int batchSize, int epochs) {
+	public static void train(int batchSize, int epochs) throws IOException {
 		Model model = new Model.Builder()
 			.add(
 				new Convolutional.Builder()
@@ -74,29 +64,11 @@ public class MNIST {
 			.inputDimensions(28, 28, 1)
 			.build();
 
-		// load MNIST data (not defined in library)
-		List<int[][]> trainImages = readImages("train-images.idx3-ubyte");
-		int[] trainLabels = readLabels("train-labels.idx1-ubyte");
-
-		Map<float[], float[]> trainData = new HashMap<>();
-		// create inputs
-		float[][] trainInputs = new float[trainImages.size()][784];
-
-		for (int i = 0; i < trainImages.size(); i++) {
-			int pos = 0;
-			for (int j = 0; j < trainImages.get(i).length; j++) {
-				for (int k = 0; k < trainImages.get(i)[j].length; k++) {
-					// normalize
-					trainInputs[i][pos++] = trainImages.get(i)[j][k] / 255.0f;
-				}
-			}
-
-			// use indices for sparse cross-entropy instead of one-hot
-			trainData.put(trainInputs[i], new float[] {trainLabels[i]});
-		}
+		// map MNIST data, images are normalized to [0, 1] and labels are indices for sparse cross-entropy
+		MappedDataset trainData = MappedDataset.openIdx("train-images.idx3-ubyte", "train-labels.idx1-ubyte");
 
 		// train model
-		UpdaterType.AMSGRAD.init(0.9f, 0.999f, 0.1f, 0.125f);
+		model.getUpdaterConfig().init(0.9f, 0.999f, 0.1f, 0.125f);
 		model.setSchedule(new CosineRestart(0.1f, 0.001f, 0.05f, 1, 2, 1));
 		model.train(trainData, batchSize, epochs, 1, "mnist.model");
 	}
@@ -0,0 +1,207 @@
+package neuralnet;
+
+import java.io.*;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed models store the structure of a model, followed by its tensors, which are split into chunks that are deflated
+ * independently. The chunks of a tensor are compressed and decompressed in parallel, and tensors are streamed one at a time, so only
+ * one compressed tensor is held in memory.
+ * <p>
+ * The bytes of each chunk can be shuffled before compression, so that the first byte of every float is followed by the second byte
+ * of every float, and so on. The sign and exponent bytes of weights vary little, so shuffled chunks compress better.
+ */
+final class CompressedModel {
+	static final int MAGIC = 0x4E4E4D5A;
+	private static final int VERSION = 1;
+	private static final int SHUFFLE = 1;
+	private static final int CHUNK_SIZE = 1 << 14;
+
+	private CompressedModel() {
+	}
+
+	/**
+	 * Writes a compressed model.
+	 *
+	 * @param dos       the output stream
+	 * @param model     the model
+	 * @param inference whether to leave out updater state
+	 * @param shuffle   whether to shuffle bytes before compression
+	 * @throws IOException if there is an error writing to the stream
+	 */
+	static void write(DataOutputStream dos, Model model, boolean inference, boolean shuffle) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		List<float[]> tensors;
+
+		try (ModelFile.TableOutput table = new ModelFile.TableOutput(bos, inference)) {
+			model.export(table);
+			tensors = table.getTensors();
+		}
+
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(shuffle ? SHUFFLE : 0);
+		dos.writeInt(CHUNK_SIZE);
+		dos.writeInt(bos.size());
+		bos.writeTo(dos);
+		dos.writeInt(tensors.size());
+
+		for (float[] tensor : tensors) {
+			int chunks = (tensor.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+			byte[][] compressed = new byte[chunks][];
+			IntStream.range(0, chunks).parallel().forEach(c -> {
+				int offset = c * CHUNK_SIZE;
+				compressed[c] = compress(tensor, offset, Math.min(CHUNK_SIZE, tensor.length - offset), shuffle);
+			});
+
+			dos.writeInt(tensor.length);
+			for (byte[] chunk : compressed) {
+				dos.writeInt(chunk.length);
+				dos.write(chunk);
+			}
+		}
+	}
+
+	/**
+	 * Opens a compressed model, after its magic has been read. Tensors are read from the stream as the structure asks for them.
+	 *
+	 * @param dis the input stream
+	 * @return the structure of the model
+	 * @throws IOException if there is an error reading from the stream
+	 */
+	static TensorInput open(DataInputStream dis) throws IOException {
+		if (dis.readInt() != VERSION)
+			throw new IOException("Unsupported model version.");
+
+		boolean shuffle = (dis.readInt() & SHUFFLE) != 0;
+		int chunkSize = dis.readInt();
+
+		if (chunkSize <= 0)
+			throw new IOException("Invalid compressed model.");
+
+		byte[] structure = new byte[dis.readInt()];
+		dis.readFully(structure);
+
+		return new Input(new ByteArrayInputStream(structure), dis, dis.readInt(), chunkSize, shuffle);
+	}
+
+	private static byte[] compress(float[] tensor, int offset, int length, boolean shuffle) {
+		byte[] bytes = new byte[length * Float.BYTES];
+
+		for (int i = 0; i < length; i++) {
+			int bits = Float.floatToRawIntBits(tensor[offset + i]);
+
+			for (int b = 0; b < Float.BYTES; b++) {
+				int index = shuffle ? b * length + i : i * Float.BYTES + b;
+				bytes[index] = (byte) (bits >>> (24 - 8 * b));
+			}
+		}
+
+		Deflater deflater = new Deflater();
+		deflater.setInput(bytes);
+		deflater.finish();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length / 2);
+		byte[] buffer = new byte[8192];
+
+		while (!deflater.finished())
+			bos.write(buffer, 0, deflater.deflate(buffer));
+
+		deflater.end();
+		return bos.toByteArray();
+	}
+
+	private static void decompress(byte[] chunk, float[] tensor, int offset, int length, boolean shuffle) throws IOException {
+		byte[] bytes = new byte[length * Float.BYTES];
+		Inflater inflater = new Inflater();
+
+		try {
+			inflater.setInput(chunk);
+
+			int position = 0;
+			while (position < bytes.length && !inflater.finished()) {
+				int inflated = inflater.inflate(bytes, position, bytes.length - position);
+
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+
+				position += inflated;
+			}
+
+			if (position != bytes.length)
+				throw new IOException("Invalid compressed tensor.");
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid compressed tensor.", e);
+		} finally {
+			inflater.end();
+		}
+
+		for (int i = 0; i < length; i++) {
+			int bits = 0;
+
+			for (int b = 0; b < Float.BYTES; b++) {
+				int index = shuffle ? b * length + i : i * Float.BYTES + b;
+				bits |= (bytes[index] & 0xFF) << (24 - 8 * b);
+			}
+
+			tensor[offset + i] = Float.intBitsToFloat(bits);
+		}
+	}
+
+	/**
+	 * Compressed inputs read the structure of a model, decompressing each tensor from the underlying stream when it is read.
+	 */
+	private static class Input extends TensorInput {
+		private final DataInputStream tensors;
+		private final int tensorAmount, chunkSize;
+		private final boolean shuffle;
+		private int index;
+
+		Input(InputStream structure, DataInputStream tensors, int tensorAmount, int chunkSize, boolean shuffle) {
+			super(structure);
+
+			this.tensors = tensors;
+			this.tensorAmount = tensorAmount;
+			this.chunkSize = chunkSize;
+			this.shuffle = shuffle;
+		}
+
+		boolean isRandomAccess() {
+			return false;
+		}
+
+		void readTensor(float[] tensor) throws IOException {
+			if (readInt() != index || index++ >= tensorAmount)
+				throw new IOException("Invalid tensor table.");
+			if (tensors.readInt() != tensor.length)
+				throw new IOException("Tensor sizes do not match.");
+
+			int chunks = (tensor.length + chunkSize - 1) / chunkSize;
+
+			byte[][] compressed = new byte[chunks][];
+			for (int c = 0; c < chunks; c++) {
+				compressed[c] = new byte[tensors.readInt()];
+				tensors.readFully(compressed[c]);
+			}
+
+			try {
+				IntStream.range(0, chunks).parallel().forEach(c -> {
+					int offset = c * chunkSize;
+
+					try {
+						decompress(compressed[c], tensor, offset, Math.min(chunkSize, tensor.length - offset), shuffle);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -98,9 +98,9 @@ public class GPU {
 	 * @param lda the a leading dimension
 	 * @param b the b array
 	 * @param ldb the b leading dimension
-	 * @param c the c array
+	 * @param c the c array, which the product is added to
 	 * @param ldc the c leading dimension
-	 * @return the output
+	 * @return c
 	 */
 	public static float[] sgemm(int aTranspose, int bTranspose, int m, int n, int k, float[] a, int lda, float[] b, int ldb,
 								float[] c, int ldc) {
@@ -112,10 +112,9 @@ public class GPU {
 		CLBlastSgemm(CLBlastLayout.CLBlastLayoutRowMajor, aTranspose, bTranspose,
 			m, n, k, 1, aBuffer, 0, lda, bBuffer, 0, ldb, 1, cBuffer, 0, ldc, commandQueue, event);
 
-		// Copy the result data back to the host
-		float[] result = new float[m * n];
+		// Copy the result data back to the host, accumulated into c
 		clEnqueueReadBuffer(commandQueue, cBuffer, true, 0, m * n
-			* Sizeof.cl_float, Pointer.to(result), 0, null, null);
+			* Sizeof.cl_float, Pointer.to(c), 0, null, null);
 
 		// Clean up
 		clReleaseMemObject(aBuffer);
@@ -123,7 +122,7 @@ public class GPU {
 		clReleaseMemObject(cBuffer);
 		clReleaseEvent(event);
 
-		return result;
+		return c;
 	}
 
 	/**
@@ -138,9 +137,9 @@ public class GPU {
 	 * @param lda the a leading dimension
 	 * @param bBuffer the b buffer
 	 * @param ldb the b leading dimension
-	 * @param c the c buffer
+	 * @param c the c array, which the product is added to
 	 * @param ldc the c leading dimension
-	 * @return the output
+	 * @return c
 	 */
 	public static float[] sgemm(int aTranspose, int bTranspose, int m, int n, int k, cl_mem aBuffer, int lda, cl_mem bBuffer, int ldb,
 								float[] c, int ldc) {
@@ -150,16 +149,15 @@ public class GPU {
 		CLBlastSgemm(CLBlastLayout.CLBlastLayoutRowMajor, aTranspose, bTranspose,
 			m, n, k, 1, aBuffer, 0, lda, bBuffer, 0, ldb, 1, cBuffer, 0, ldc, commandQueue, event);
 
-		// Copy the result data back to the host
-		float[] result = new float[m * n];
+		// Copy the result data back to the host, accumulated into c
 		clEnqueueReadBuffer(commandQueue, cBuffer, true, 0, m * n
-			* Sizeof.cl_float, Pointer.to(result), 0, null, null);
+			* Sizeof.cl_float, Pointer.to(c), 0, null, null);
 
 		// Clean up
 		clReleaseMemObject(cBuffer);
 		clReleaseEvent(event);
 
-		return result;
+		return c;
 	}
 
 	/**
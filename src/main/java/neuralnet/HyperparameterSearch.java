@@ -0,0 +1,113 @@
+package neuralnet;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Hyper-parameter searches run trials in parallel in a single JVM, so that trials share the JIT and any cached data. Each trial builds
+ * and trains its own model, and since hyper-parameters are held by each model's UpdaterConfig, trials do not affect each other.
+ */
+public class HyperparameterSearch {
+	/**
+	 * Runs a trial for each candidate in parallel. If the calling thread is interrupted, the remaining trials are cancelled and fail,
+	 * and the thread stays interrupted.
+	 *
+	 * @param candidates the candidates, such as learning rates
+	 * @param trial      builds and trains a model for a candidate, returning its score, where lower is better
+	 * @param threads    the amount of trials run at once
+	 * @param <T>        the type of the candidates
+	 * @return the result of each candidate, in the order of the candidates, with a score of NaN if its trial failed
+	 */
+	public static <T> List<Result<T>> run(List<T> candidates, Function<T, Float> trial, int threads) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Thread amount must be > 0.");
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		// candidates are kept in a list, so that equal candidates each get their own trial
+		List<Future<Float>> futures = new ArrayList<>();
+		for (T candidate : candidates)
+			futures.add(executor.submit(() -> trial.apply(candidate)));
+
+		List<Result<T>> results = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				float score = Float.NaN;
+
+				try {
+					score = futures.get(i).get();
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+				}
+
+				results.add(new Result<>(candidates.get(i), score));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// every candidate has a result, so that a cancelled search isn't mistaken for a complete one
+		for (int i = results.size(); i < candidates.size(); i++)
+			results.add(new Result<>(candidates.get(i), Float.NaN));
+
+		return results;
+	}
+
+	/**
+	 * Finds the candidate with the lowest score, ignoring failed trials.
+	 *
+	 * @param results the results of each candidate
+	 * @param <T>     the type of the candidates
+	 * @return the best candidate, or null if every trial failed
+	 */
+	public static <T> T best(List<Result<T>> results) {
+		T best = null;
+		float lowest = Float.POSITIVE_INFINITY;
+
+		for (Result<T> result : results) {
+			if (result.score < lowest) {
+				best = result.candidate;
+				lowest = result.score;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Results hold the score of a candidate's trial.
+	 *
+	 * @param <T> the type of the candidate
+	 */
+	public static class Result<T> {
+		private final T candidate;
+		private final float score;
+
+		private Result(T candidate, float score) {
+			this.candidate = candidate;
+			this.score = score;
+		}
+
+		/**
+		 * Gets the candidate.
+		 *
+		 * @return the candidate
+		 */
+		public T getCandidate() {
+			return candidate;
+		}
+
+		/**
+		 * Gets the score of the candidate, where lower is better.
+		 *
+		 * @return the score, or NaN if the trial failed
+		 */
+		public float getScore() {
+			return score;
+		}
+	}
+}
@@ -1,20 +1,32 @@
 package neuralnet;
 
 import javafx.application.Application;
+import neuralnet.compressors.Compressor;
+import neuralnet.compressors.CompressorType;
 import neuralnet.costs.Cost;
 import neuralnet.costs.CostType;
+import neuralnet.data.ArrayDataset;
+import neuralnet.data.Batch;
+import neuralnet.data.Dataset;
+import neuralnet.data.PackedSequence;
+import neuralnet.data.PrefetchIterator;
+import neuralnet.data.RandomAccessDataset;
 import neuralnet.layers.Layer;
 import neuralnet.layers.LayerType;
+import neuralnet.optimizers.UpdaterConfig;
 import neuralnet.optimizers.UpdaterType;
 import neuralnet.schedules.Schedule;
 import plot.Plot;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
 
 /**
  * Models represent neural network models. They forward and back propagate layers.
@@ -25,11 +37,31 @@ public class Model {
 	private static final ThreadPoolExecutor ES = new ThreadPoolExecutor(CORES, CORES, 0L, TimeUnit.MILLISECONDS,
 		new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
 
+	// checkpoints are written one at a time, in the order they are taken
+	private static final ExecutorService CHECKPOINTS = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// exported models begin with a header, while older files begin with the layer amount
+	private static final int MAGIC = 0x4E4E4D53;
+	private static final int VERSION = 2;
+	private static final int LAYER_LENGTHS = 2;
+	private static final int INFERENCE = 1;
+	private static final int MAX_LAYERS = 1 << 16;
+
+	// loss scales start high, halve on overflow and double after an interval of steps without one
+	private static final float INITIAL_LOSS_SCALE = 65536;
+	private static final int LOSS_SCALE_INTERVAL = 2000;
+
 	static {
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
 			ES.shutdown();
+			CHECKPOINTS.shutdown();
 			try {
 				ES.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+				CHECKPOINTS.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
 			} catch (InterruptedException e) {
 				e.printStackTrace();
 			}
@@ -37,24 +69,40 @@ public class Model {
 	}
 
 	private int inputSize;
-	private UpdaterType updaterType;
+	private UpdaterConfig updaterConfig;
 
 	// TODO: Implement non-sequential
 	private Layer[] layers;
 	private Schedule schedule;
 	private Cost cost;
+	private ParameterArena arena;
+	private float clipNorm;
+
+	private Precision precision;
+	private float lossScale;
+	private int scaledSteps;
 
-	private Model(Layer[] layers, CostType costType, UpdaterType updaterType, int[] inputDimensions) {
+	private boolean inference;
+	private Future<?> checkpoint;
+	private int checkpointSteps;
+	private Progress resumed;
+
+	private CompressorType compressorType;
+	private float density;
+	private Compressor[] compressors;
+	private long bytesExchanged, bytesUncompressed;
+
+	private Model(Layer[] layers, CostType costType, UpdaterConfig updaterConfig, int[] inputDimensions) {
 		if (layers.length <= 0)
 			throw new IllegalArgumentException("Invalid layer amount.");
 		Objects.requireNonNull(costType);
-		Objects.requireNonNull(updaterType);
+		Objects.requireNonNull(updaterConfig);
 		Objects.requireNonNull(inputDimensions);
 
 		this.layers = layers;
 
 		this.schedule = new Schedule() {
-			public void init(UpdaterType updaterType, int batchSize, int keyAmount) {
+			public void init(UpdaterConfig updaterConfig, int batchSize, int keyAmount) {
 			}
 
 			public void increment(int s) {
@@ -68,38 +116,62 @@ public class Model {
 		};
 
 		this.cost = costType;
-		this.updaterType = updaterType;
+		this.updaterConfig = updaterConfig;
 
 		inputSize = inputDimensions[0];
 		for (int i = 1; i < inputDimensions.length; i++)
 			inputSize *= inputDimensions[i];
 
-		layers[0].setDimensions(inputDimensions, updaterType); // setting input dimensions
+		layers[0].setDimensions(inputDimensions, updaterConfig); // setting input dimensions
 
 		// each layer's output is the next layer's input
 		for (int i = 1; i < layers.length; i++) {
-			layers[i].setDimensions(layers[i - 1].getOutputDimensions(), updaterType);
+			layers[i].setDimensions(layers[i - 1].getOutputDimensions(), updaterConfig);
 		}
 	}
 
 	/**
-	 * Imports a model from a file.
+	 * Creates a replica of a model for asynchronous training. The replica shares parameters with the model.
 	 *
-	 * @param file the path to the file
+	 * @param model the model
 	 */
-	public Model(String file) {
-		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 16384))) {
-			// importing layers
-			int layerAmount = dis.readInt();
-			inputSize = dis.readInt();
+	private Model(Model model) {
+		inputSize = model.inputSize;
+		updaterConfig = model.updaterConfig;
+		schedule = model.schedule;
+		cost = model.cost;
+		clipNorm = model.clipNorm;
+		precision = model.precision;
+		lossScale = model.lossScale;
+
+		layers = new Layer[model.layers.length];
+		for (int i = 0; i < layers.length; i++)
+			layers[i] = model.layers[i].replicate(updaterConfig);
+	}
 
-			updaterType = UpdaterType.fromString(dis);
+	/**
+	 * Creates a model with the same input, cost and hyper-parameters as another model, but different layers, such as quantized ones.
+	 *
+	 * @param model  the model
+	 * @param layers the layers
+	 */
+	Model(Model model, Layer[] layers) {
+		inputSize = model.inputSize;
+		updaterConfig = model.updaterConfig;
+		schedule = model.schedule;
+		cost = model.cost;
 
-			layers = new Layer[layerAmount];
-			for (int i = 0; i < layerAmount; i++)
-				layers[i] = LayerType.fromString(dis, updaterType);
+		this.layers = layers;
+	}
 
-			cost = CostType.fromString(dis);
+	/**
+	 * Imports a model from a file.
+	 *
+	 * @param file the path to the file
+	 */
+	public Model(String file) {
+		try (ModelInputStream dis = open(file)) {
+			importModel(dis);
 
 			System.out.println("Imported from: " + file);
 		} catch (IOException e) {
@@ -114,23 +186,157 @@ public class Model {
 	 * @param is the input stream
 	 */
 	public Model(InputStream is) {
-		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(is, 16384))) {
-			// importing layers
-			int layerAmount = dis.readInt();
-			inputSize = dis.readInt();
+		try (ModelInputStream dis = new ModelInputStream(new BufferedInputStream(is, 16384))) {
+			importModel(dis);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+	}
+
+	/**
+	 * Imports a model from a model input stream, such as the structure of a model file.
+	 *
+	 * @param dis the input stream
+	 * @throws IOException if there is an error reading from the stream
+	 */
+	Model(ModelInputStream dis) throws IOException {
+		importModel(dis);
+	}
 
-			updaterType = UpdaterType.fromString(dis);
+	/**
+	 * Imports a model from a file, then warms it up, so that it serves requests at full speed from the first one.
+	 *
+	 * @param file     the path to the file
+	 * @param maxBatch the largest batch size the model will be called with, or 0 to skip warming up
+	 * @return the model
+	 * @throws IOException if there is an error reading from the file
+	 * @see #warmUp(int)
+	 */
+	public static Model load(String file, int maxBatch) throws IOException {
+		Model model;
+		try (ModelInputStream dis = open(file)) {
+			model = new Model(dis);
+		}
+
+		if (maxBatch > 0)
+			model.warmUp(maxBatch);
+
+		return model;
+	}
+
+	/**
+	 * Opens a file that a model was exported to, or a memory-mapped model file, whose little-endian header can't be read as a stream.
+	 *
+	 * @param file the path to the file
+	 * @return the stream
+	 * @throws IOException if there is an error reading from the file
+	 * @see ModelFile
+	 */
+	private static ModelInputStream open(String file) throws IOException {
+		if (ModelFile.isModelFile(file))
+			return ModelFile.open(file).input();
 
-			layers = new Layer[layerAmount];
+		return new ModelInputStream(new BufferedInputStream(new FileInputStream(file), 16384));
+	}
+
+	private void importModel(ModelInputStream dis) throws IOException {
+		int layerAmount = dis.readInt();
+
+		if (layerAmount == CompressedModel.MAGIC) {
+			try (TensorInput input = CompressedModel.open(dis)) {
+				importModel(input);
+			}
+
+			return;
+		}
+
+		if (layerAmount == Integer.reverseBytes(ModelFile.MAGIC))
+			throw new IOException("Memory-mapped model files are opened with ModelFile.open.");
+
+		int version = 0;
+
+		if (layerAmount == MAGIC) {
+			version = dis.readInt();
+			if (version < 1 || version > VERSION)
+				throw new IOException("Unsupported model version.");
+
+			inference = (dis.readInt() & INFERENCE) != 0;
+			dis.setInference(inference);
+
+			layerAmount = dis.readInt();
+		}
+
+		// the layer amount is checked before it is allocated, so that unrecognized files fail instead of exhausting memory
+		if (layerAmount < 0 || layerAmount > MAX_LAYERS)
+			throw new IOException("Invalid layer amount.");
+
+		// importing layers
+		inputSize = dis.readInt();
+
+		updaterConfig = UpdaterConfig.fromString(dis);
+
+		layers = new Layer[layerAmount];
+
+		if (version >= LAYER_LENGTHS && dis.isRandomAccess())
+			importLayers(dis);
+		else {
 			for (int i = 0; i < layerAmount; i++) {
-				layers[i] = LayerType.fromString(dis, updaterType);
+				if (version >= LAYER_LENGTHS)
+					dis.readInt();
+
+				layers[i] = LayerType.fromString(dis, updaterConfig);
 			}
+		}
 
-			cost = CostType.fromString(dis);
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
+		cost = CostType.fromString(dis);
+	}
+
+	/**
+	 * Imports layers in parallel on the executor of models. Each layer is prefixed with its length, so the bytes of every layer are read
+	 * first, then decoded along with any conversion of weights its constructor does.
+	 *
+	 * @param dis the input stream
+	 * @throws IOException if there is an error reading from the stream
+	 */
+	private void importLayers(ModelInputStream dis) throws IOException {
+		byte[][] bodies = new byte[layers.length][];
+		for (int i = 0; i < layers.length; i++) {
+			bodies[i] = new byte[dis.readInt()];
+			dis.readFully(bodies[i]);
 		}
+
+		List<Callable<Layer>> tasks = new ArrayList<>();
+		for (byte[] body : bodies) {
+			tasks.add(() -> {
+				try (ModelInputStream part = dis.split(body)) {
+					return LayerType.fromString(part, updaterConfig);
+				}
+			});
+		}
+
+		try {
+			List<Future<Layer>> futures = ES.invokeAll(tasks);
+			for (int i = 0; i < layers.length; i++)
+				layers[i] = futures.get(i).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Gets the updater config, which holds the hyper-parameters of this model's updaters.
+	 *
+	 * @return the updater config
+	 */
+	public UpdaterConfig getUpdaterConfig() {
+		return updaterConfig;
 	}
 
 	public void setSchedule(Schedule schedule) {
@@ -138,10 +344,48 @@ public class Model {
 		this.schedule = schedule;
 	}
 
+	/**
+	 * Sets the compression used on gradients between back propagation and updating. Gradients are encoded, then decoded, as they would
+	 * be when exchanged between workers, so that the amount of bytes sent and the effect on convergence can be measured.
+	 *
+	 * @param compressorType the compressor type, or null to disable compression
+	 * @param density        the fraction of values sent by top-k sparsification
+	 */
+	public void setCompression(CompressorType compressorType, float density) {
+		this.compressorType = compressorType;
+		this.density = density;
+
+		compressors = null;
+		bytesExchanged = 0;
+		bytesUncompressed = 0;
+	}
+
+	/**
+	 * Gets the amount of bytes of compressed gradients, since compression was set.
+	 *
+	 * @return the amount of bytes exchanged
+	 */
+	public long getBytesExchanged() {
+		return bytesExchanged;
+	}
+
+	/**
+	 * Gets the amount of bytes the gradients would have taken without compression, since compression was set.
+	 *
+	 * @return the amount of uncompressed bytes
+	 */
+	public long getBytesUncompressed() {
+		return bytesUncompressed;
+	}
+
 	public int[] getOutputDimensions() {
 		return layers[layers.length - 1].getOutputDimensions();
 	}
 
+	public Cost getCost() {
+		return cost;
+	}
+
 	public int getLayerAmount() {
 		return layers.length;
 	}
@@ -172,7 +416,7 @@ public class Model {
 	 */
 	public void backward(float[] targets) {
 		// calculating the derivative of cost first
-		float[] delta = layers[layers.length - 1].backward(cost, targets, layers.length > 1);
+		float[] delta = layers[layers.length - 1].backward(getScaledCost(), targets, layers.length > 1);
 
 		// looping through layers backwards and feeding outputted delta as inputs.
 		for (int i = layers.length - 2; i >= 0; i--)
@@ -185,11 +429,20 @@ public class Model {
 	 * @param length the length of the parameters
 	 */
 	public void update(int length) {
+		if (inference)
+			throw new IllegalStateException("Models exported for inference cannot be trained.");
+
+		float scale = scale(length);
+
+		// the step is skipped when scaled gradients overflowed
+		if (scale == 0)
+			return;
+
 		List<Callable<Void>> tasks = new ArrayList<>();
 
 		for (Layer layer : layers) {
 			tasks.add(() -> {
-				layer.update(length);
+				layer.update(scale);
 				return null;
 			});
 		}
@@ -203,6 +456,220 @@ public class Model {
 		tasks.clear();
 	}
 
+	/**
+	 * Prepares gradients for an update, then gets the amount the summed gradients are divided by. With half precision, overflow is
+	 * detected first and the amount also undoes the loss scale. Gradients are compressed after that, so that no overflowed gradient
+	 * reaches the residuals of compressors.
+	 *
+	 * @param length the batch size
+	 * @return the scale, or 0 if the gradients overflowed and the step should be skipped
+	 */
+	private float scale(int length) {
+		float scale = length;
+
+		if (precision != null) {
+			float lossScale = this.lossScale;
+			if (overflowed())
+				return 0;
+
+			// compressors keep unscaled residuals, which stay valid when the loss scale changes
+			if (compressorType != null)
+				getArena().scaleGradients(1 / lossScale);
+			else
+				scale *= lossScale;
+		}
+
+		if (compressorType != null)
+			compress();
+
+		return clip(scale);
+	}
+
+	/**
+	 * Checks whether the loss scaled gradients of half precision overflowed. Overflowed gradients are zeroed and the loss scale is
+	 * halved, while the loss scale is doubled after an interval of steps without overflow.
+	 *
+	 * @return whether the gradients overflowed and the step should be skipped
+	 */
+	private boolean overflowed() {
+		double norm = getArena().gradientNorm();
+
+		if (Double.isNaN(norm) || Double.isInfinite(norm)) {
+			getArena().zeroGradients();
+
+			lossScale = Math.max(1, lossScale / 2);
+			scaledSteps = 0;
+
+			return true;
+		}
+
+		if (++scaledSteps == LOSS_SCALE_INTERVAL) {
+			lossScale *= 2;
+			scaledSteps = 0;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets the amount the summed gradients are divided by. When the global norm of the averaged gradients is larger than the clip
+	 * norm, the amount is increased so that updaters rescale gradients down to the clip norm within their own pass.
+	 *
+	 * @param scale the amount without clipping, which is the batch size, times any loss scale left in the gradients
+	 * @return the scale
+	 */
+	private float clip(float scale) {
+		if (clipNorm <= 0)
+			return scale;
+
+		double norm = getArena().gradientNorm() / scale;
+		return norm > clipNorm ? (float) (scale * norm / clipNorm) : scale;
+	}
+
+	/**
+	 * Gets the cost to back propagate. With half precision, its derivative is multiplied by the loss scale, so that small gradients
+	 * are not flushed to zero.
+	 *
+	 * @return the cost
+	 */
+	private Cost getScaledCost() {
+		return precision == null ? cost : new ScaledCost(cost, lossScale);
+	}
+
+	/**
+	 * Sets the maximum global L2 norm of the averaged gradients of all layers, above which gradients are scaled down.
+	 *
+	 * @param clipNorm the clip norm, or 0 to disable clipping
+	 */
+	public void setClipNorm(float clipNorm) {
+		if (clipNorm < 0)
+			throw new IllegalArgumentException("Clip norm must be >= 0.");
+
+		this.clipNorm = clipNorm;
+	}
+
+	/**
+	 * Sets the precision that layers keep activations in and pass deltas at. Half precision scales the loss dynamically, skipping
+	 * steps that overflow, while weights and updaters stay in single precision.
+	 *
+	 * @param precision the precision, or null for single precision
+	 */
+	public void setPrecision(Precision precision) {
+		this.precision = precision;
+
+		lossScale = INITIAL_LOSS_SCALE;
+		scaledSteps = 0;
+
+		for (Layer layer : layers)
+			layer.setPrecision(precision);
+	}
+
+	/**
+	 * Gets whether this model was imported from a model exported for inference, which has no updaters.
+	 *
+	 * @return whether this model is for inference
+	 */
+	public boolean isInference() {
+		return inference;
+	}
+
+	/**
+	 * Gets the current loss scale of half precision training.
+	 *
+	 * @return the loss scale
+	 */
+	public float getLossScale() {
+		return lossScale;
+	}
+
+	/**
+	 * Gets the size of a single input, which is the product of the input dimensions.
+	 *
+	 * @return the input size
+	 */
+	public int getInputSize() {
+		return inputSize;
+	}
+
+	/**
+	 * Estimates the memory held by this model, counting the parameters and gradients of every layer. Updater state and buffers of
+	 * forward propagation are not counted.
+	 *
+	 * @return the amount of bytes
+	 */
+	public long getParameterBytes() {
+		long bytes = 0;
+		for (Layer layer : layers) {
+			for (float[][] parameters : layer.getParameters()) {
+				for (float[] values : parameters) {
+					// models imported for inference have no gradients until they are back propagated
+					if (values != null)
+						bytes += (long) values.length * Float.BYTES;
+				}
+			}
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Gets the parameter arena, which sweeps over the parameters and gradients of every layer as a single flat array.
+	 *
+	 * @return the arena
+	 */
+	public ParameterArena getArena() {
+		if (arena == null)
+			arena = new ParameterArena(layers);
+
+		return arena;
+	}
+
+	/**
+	 * Compresses then decompresses the gradients of all layers in place.
+	 */
+	private void compress() {
+		List<float[][]> parameters = new ArrayList<>();
+		for (Layer layer : layers)
+			parameters.addAll(Arrays.asList(layer.getParameters()));
+
+		if (compressors == null) {
+			compressors = new Compressor[parameters.size()];
+			for (int i = 0; i < compressors.length; i++)
+				compressors[i] = compressorType.create(parameters.get(i)[1].length, density);
+		}
+
+		List<Callable<Integer>> tasks = new ArrayList<>();
+
+		for (int i = 0; i < compressors.length; i++) {
+			Compressor compressor = compressors[i];
+			float[] gradient = parameters.get(i)[1];
+
+			tasks.add(() -> {
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				try (DataOutputStream dos = new DataOutputStream(bos)) {
+					compressor.compress(gradient, dos);
+				}
+
+				// the gradient is replaced with what would be received by other workers
+				Arrays.fill(gradient, 0);
+				try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+					compressor.decompress(dis, gradient);
+				}
+
+				return bos.size();
+			});
+
+			bytesUncompressed += (long) gradient.length * Float.BYTES;
+		}
+
+		try {
+			for (Future<Integer> future : ES.invokeAll(tasks))
+				bytesExchanged += future.get();
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Trains the model from data. For sparse data, make each target a float array with a single element.
 	 *
@@ -212,74 +679,260 @@ public class Model {
 	 * @param checkpoint the amount of epochs to export
 	 * @param name       the exported model name
 	 */
-	@SuppressWarnings("Duplicates")
 	public void train(Map<float[], float[]> data, int batchSize, int epochs, int checkpoint, String name) {
+		// the order of the keys of a map isn't kept between runs, so training resumes from the start of an epoch
+		train(new ArrayDataset(data), batchSize, 1, epochs, checkpoint, name, false);
+	}
+
+	/**
+	 * Trains the model from a dataset, which is streamed one batch at a time. For sparse data, make each target a float array with a
+	 * single element.
+	 *
+	 * @param dataset    the dataset
+	 * @param batchSize  the batch size
+	 * @param epochs     the amount of epochs
+	 * @param checkpoint the amount of epochs to export
+	 * @param name       the exported model name
+	 */
+	public void train(Dataset dataset, int batchSize, int epochs, int checkpoint, String name) {
+		train(dataset, batchSize, 1, epochs, checkpoint, name);
+	}
+
+	/**
+	 * Trains the model from a dataset with gradient accumulation. Gradients of several micro-batches are summed in place before a single
+	 * update, so the effective batch size is the batch size times the accumulation, while only a micro-batch is in memory at once.
+	 *
+	 * @param dataset      the dataset
+	 * @param batchSize    the micro-batch size
+	 * @param accumulation the amount of micro-batches per update
+	 * @param epochs       the amount of epochs
+	 * @param checkpoint   the amount of epochs to export
+	 * @param name         the exported model name
+	 */
+	@SuppressWarnings("Duplicates")
+	public void train(Dataset dataset, int batchSize, int accumulation, int epochs, int checkpoint, String name) {
+		train(dataset, batchSize, accumulation, epochs, checkpoint, name, true);
+	}
+
+	/**
+	 * Trains the model from a dataset.
+	 *
+	 * @param seekable whether a resumed epoch continues from its position, or starts over because the samples may be in another order
+	 */
+	private void train(Dataset dataset, int batchSize, int accumulation, int epochs, int checkpoint, String name, boolean seekable) {
+		if (accumulation <= 0)
+			throw new IllegalArgumentException("Accumulation must be > 0.");
+
 		new Thread(() -> Application.launch(Plot.class, (String) null)).start();
 
 		// setting mode to training mode
 		setMode(Layer.Mode.TRAIN);
 
-		List<float[]> keys = new ArrayList<>(data.keySet());
+		int size = dataset.size();
+		schedule.init(updaterConfig, batchSize * accumulation, size);
 
-		int inputSize = keys.get(0).length;
-		int targetSize = data.get(keys.get(0)).length;
+		// a resumed run continues from where its checkpoint was taken
+		Progress resume = resumed;
+		resumed = null;
+		if (resume != null)
+			resume.restore(updaterConfig, schedule);
 
-		schedule.init(updaterType, batchSize, keys.size());
+		int batch = resume == null ? 0 : resume.batch;
+		int steps = 0;
+		for (int i = resume == null ? 1 : resume.epoch; i <= epochs; i++) {
+			int position = 0;
 
-		int batch = 0;
-		for (int i = 1; i <= epochs; i++) {
-			if (i % checkpoint == 0)
-				export(name);
+			// the dataset is restored to the start of the epoch, so that the epoch is shuffled the same way again
+			if (resume != null) {
+				resume.restore(dataset);
+				position = seekable ? resume.position : 0;
+			}
 
-			// shuffling data prevents the neural network from learning the order of the data
-			Collections.shuffle(keys);
+			byte[] state = Progress.exportState(dataset);
+
+			if (resume == null && i % checkpoint == 0)
+				checkpoint(name, this, new Progress(i, 0, batch, state, updaterConfig, schedule));
+
+			resume = null;
+
+			int[] order = null;
+			if (dataset instanceof RandomAccessDataset)
+				order = ((RandomAccessDataset) dataset).order();
 
 			System.out.println("Epoch: " + i + "/" + epochs);
-			// looping through the training set
-			for (int j = 0; j < keys.size(); j += batchSize, batch++) {
-				// calculating the batch size
-				int s = (j + batchSize) > keys.size() ? (keys.size() % batchSize) : batchSize;
-				schedule.step();
 
-				float[] inputs = new float[s * inputSize];
-				float[] targets = new float[s * targetSize];
+			// each iterator is a new epoch, which shuffles the data if the dataset supports it
+			// the next batch is assembled in the background while the current batch trains
+			try (PrefetchIterator batches = order != null ? ((RandomAccessDataset) dataset).batches(batchSize, order, position)
+				: dataset.batches(batchSize)) {
+				int micro = 0, length = 0;
 
-				// creating a batch
-				for (int b = 0; b < s; b++) {
-					float[] input = keys.get(b + j);
-					float[] target = data.get(input);
-					System.arraycopy(input, 0, inputs, b * inputSize, inputSize);
-					System.arraycopy(target, 0, targets, b * targetSize, targetSize);
-				}
+				// streamed datasets can't seek, so the samples already trained on are read again and skipped
+				int j = order != null ? position : 0;
+				while (j < position && batches.hasNext())
+					j += batches.next().getSize();
 
-				// forward propagating the batch
-				float[] output = forward(inputs, s);
+				// looping through the training set
+				for (; batches.hasNext(); batch++) {
+					Batch current = batches.next();
+					int s = current.getSize();
+					float[] targets = current.getTargets();
 
-				// back propagating batch
-				backward(targets);
+					// forward propagating the batch
+					float[] output = forward(current.getInputs(), s);
 
-				update(s);
+					// back propagating batch, which adds to the gradients of previous micro-batches
+					backward(targets);
 
-				int progress = (int) ((float) (j + s) / keys.size() * 30 + 0.5);
-				System.out.printf("\r%d/%d [", j + s, keys.size());
+					micro++;
+					length += s;
 
-				for (int k = 0; k < progress; k++)
-					System.out.print("#");
-				for (int k = progress; k < 30; k++)
-					System.out.print("-");
+					// the last micro-batches of an epoch are updated even if there are fewer of them
+					if (micro == accumulation || !batches.hasNext()) {
+						schedule.step();
+						update(length);
+						schedule.increment(length);
 
-				float average = cost.cost(output, targets) / s;
-				System.out.print("] - loss: " + average);
+						micro = 0;
+						length = 0;
+					}
+
+					j += s;
+
+					// mid-epoch checkpoints are taken after an update, so that no micro-batch is lost
+					if (micro == 0 && checkpointSteps > 0 && ++steps % checkpointSteps == 0 && batches.hasNext())
+						checkpoint(name, this, new Progress(i, j, batch + 1, state, updaterConfig, schedule));
+
+					float average = cost.cost(output, targets) / s;
 
-				Plot.update(batch, average);
+					if (size > 0) {
+						int progress = (int) ((float) j / size * 30 + 0.5);
+						System.out.printf("\r%d/%d [", j, size);
+
+						for (int k = 0; k < progress; k++)
+							System.out.print("#");
+						for (int k = progress; k < 30; k++)
+							System.out.print("-");
+
+						System.out.print("] - loss: " + average);
+					} else {
+						System.out.print("\r" + j + " - loss: " + average);
+					}
 
-				schedule.increment(s);
+					Plot.update(batch, average);
+				}
 			}
 
 			System.out.println();
 
 			schedule.endEpoch(i);
 		}
+
+		awaitCheckpoint();
+	}
+
+	/**
+	 * Trains the model asynchronously, Hogwild style. Each thread pulls batches and trains its own replica of the model. Replicas share
+	 * parameters with this model, but have their own activations, gradients and updater moments, and update the shared parameters
+	 * without locking. Checkpoints hold the shared parameters with the updater state of the first replica, which has taken about a
+	 * thread's share of the steps.
+	 *
+	 * @param data       the data
+	 * @param batchSize  the batch size
+	 * @param epochs     the amount of epochs
+	 * @param threads    the amount of threads
+	 * @param checkpoint the amount of epochs to export
+	 * @param name       the exported model name
+	 */
+	public void trainAsynchronous(Map<float[], float[]> data, int batchSize, int epochs, int threads, int checkpoint, String name) {
+		if (threads <= 0)
+			throw new IllegalArgumentException("Thread amount must be > 0.");
+
+		List<float[]> keys = new ArrayList<>(data.keySet());
+
+		int inputSize = keys.get(0).length;
+		int targetSize = data.get(keys.get(0)).length;
+
+		Model[] replicas = new Model[threads];
+		for (int i = 0; i < threads; i++) {
+			replicas[i] = new Model(this);
+			replicas[i].setMode(Layer.Mode.TRAIN);
+		}
+
+		schedule.init(updaterConfig, batchSize, keys.size());
+
+		// replicas update their layers on their own threads, as waiting on the shared executor from it could deadlock
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		List<Callable<Void>> tasks = new ArrayList<>();
+
+		try {
+			for (int i = 1; i <= epochs; i++) {
+				// only replicas update, so the moments of this model's updaters never move from their initial state
+				if (i % checkpoint == 0)
+					checkpoint(name, replicas[0], null);
+
+				Collections.shuffle(keys);
+
+				AtomicInteger position = new AtomicInteger();
+				AtomicInteger batches = new AtomicInteger();
+				DoubleAdder loss = new DoubleAdder();
+
+				for (Model replica : replicas) {
+					tasks.add(() -> {
+						int j;
+						while ((j = position.getAndAdd(batchSize)) < keys.size()) {
+							int s = Math.min(batchSize, keys.size() - j);
+
+							synchronized (schedule) {
+								schedule.step();
+							}
+
+							float[] inputs = new float[s * inputSize];
+							float[] targets = new float[s * targetSize];
+
+							for (int b = 0; b < s; b++) {
+								float[] input = keys.get(b + j);
+								System.arraycopy(input, 0, inputs, b * inputSize, inputSize);
+								System.arraycopy(data.get(input), 0, targets, b * targetSize, targetSize);
+							}
+
+							float[] output = replica.forward(inputs, s);
+							replica.backward(targets);
+
+							float scale = replica.scale(s);
+							if (scale > 0) {
+								for (Layer layer : replica.layers)
+									layer.update(scale);
+							}
+
+							loss.add(cost.cost(output, targets) / s);
+							batches.incrementAndGet();
+
+							synchronized (schedule) {
+								schedule.increment(s);
+							}
+						}
+
+						return null;
+					});
+				}
+
+				for (Future<Void> future : workers.invokeAll(tasks))
+					future.get();
+
+				tasks.clear();
+
+				System.out.println("Epoch: " + i + "/" + epochs + " - loss: " + loss.sum() / batches.get());
+
+				schedule.endEpoch(i);
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			workers.shutdown();
+		}
+
+		awaitCheckpoint();
 	}
 
 	@SuppressWarnings("Duplicates")
@@ -290,84 +943,78 @@ public class Model {
 		setMode(Layer.Mode.TRAIN);
 
 		List<float[][]> keys = new ArrayList<>(data.keySet());
-		schedule.init(updaterType, batchSize, keys.size());
+		schedule.init(updaterConfig, batchSize, keys.size());
 
-		int batch = 0;
-		for (int i = 1; i <= epochs; i++) {
-			if (i % checkpoint == 0)
-				export(name);
+		// the order of the keys of a map isn't kept between runs, so recurrent training resumes from the start of an epoch
+		Progress resume = resumed;
+		resumed = null;
+		if (resume != null)
+			resume.restore(updaterConfig, schedule);
 
-			// shuffling data prevents the neural network from learning the order of the data
-			Collections.shuffle(keys);
+		List<Integer> starts = new ArrayList<>();
+		for (int j = 0; j < keys.size(); j += batchSize)
+			starts.add(j);
 
-			System.out.println("Epoch: " + i + "/" + epochs);
-			// looping through the training set
-			for (int j = 0; j < keys.size(); j += batchSize, batch++) {
-				// calculating the batch size
-				int s = (j + batchSize) > keys.size() ? (keys.size() % batchSize) : batchSize;
-				schedule.step();
+		int batch = resume == null ? 0 : resume.batch;
+		for (int i = resume == null ? 1 : resume.epoch; i <= epochs; i++) {
+			if (i % checkpoint == 0 && resume == null)
+				checkpoint(name, this, new Progress(i, 0, batch, new byte[0], updaterConfig, schedule));
 
-				// going to loop through timesteps to longest input in time
-				int longest = 0;
+			resume = null;
 
-				for (int b = 0; b < s; b++) {
-					if (keys.get(b + j).length > longest)
-						longest = keys.get(b + j).length;
-				}
+			// shuffling data prevents the neural network from learning the order of the data
+			Collections.shuffle(keys);
 
-				// this is the amount of separate bptt groups the longest input has
-				int sections = (int) ((float) longest / bptt + 0.5);
+			// bucketing by length, so that each batch holds sequences of similar length, the sort is stable so equal lengths stay shuffled
+			keys.sort(Comparator.comparingInt(key -> key.length));
+			Collections.shuffle(starts);
 
-				// the length of this list is equal to the amount of bptt groups
-				Map<float[][], float[][]> groups = new HashMap<>();
+			System.out.println("Epoch: " + i + "/" + epochs);
 
-				// creating a batch
-				for (int k = 0; k < longest; k += bptt) {
-					int n = (k + bptt) > longest ? (longest % bptt) : bptt;
+			// looping through the training set
+			int seen = 0;
+			for (int j : starts) {
+				batch++;
 
-					float[][] inputs = new float[n][s * inputSize];
-					float[][] targets = new float[n][s];
+				// calculating the batch size
+				int s = Math.min(batchSize, keys.size() - j);
+				schedule.step();
 
-					for (int t = 0; t < n; t++ ) {
-						for (int b = 0; b < s; b++) {
-							float[][] key = keys.get(b + j);
-							if (t + k < key.length) {
-								targets[t][b] = data.get(key)[t + k];
+				List<float[][]> sequences = keys.subList(j, j + s);
+				List<float[]> targets = new ArrayList<>();
+				for (float[][] sequence : sequences)
+					targets.add(data.get(sequence));
 
-								System.arraycopy(key[t + k], 0, inputs[t], b * inputSize, inputSize);
-							} else {
-								targets[t][b] = -1;
-							}
-						}
-					}
+				// packing skips the steps of finished sequences, instead of padding them
+				PackedSequence packed = PackedSequence.pack(sequences, targets);
+				seen += s;
 
-					groups.put(inputs, targets);
-				}
+				// looping through the bptt groups
+				for (int k = 0; k < packed.getLength(); k += bptt) {
+					PackedSequence group = packed.slice(k, Math.min(bptt, packed.getLength() - k));
 
-				List<float[][]> inputs = new ArrayList<>(groups.keySet());
-				for (float[][] input : inputs) {
-					float[][] output = forward(input, s);
-					float[][] target = groups.get(input);
+					float[][] output = forward(group.getInputs(), group.getBatchSizes());
+					float[][] target = group.getTargets();
 
 					backward(target);
 
-					update(s * output.length);
+					update(group.getSteps());
 
-					int progress = (int) ((float) (j + s) / keys.size() * 30 + 0.5);
-					System.out.printf("\r%d/%d [", j + s, keys.size());
+					int progress = (int) ((float) seen / keys.size() * 30 + 0.5);
+					System.out.printf("\r%d/%d [", seen, keys.size());
 
-					for (int k = 0; k < progress; k++)
+					for (int l = 0; l < progress; l++)
 						System.out.print("#");
-					for (int k = progress; k < 30; k++)
+					for (int l = progress; l < 30; l++)
 						System.out.print("-");
 
 					float average = 0;
 
-					for (int k = 0; k < output.length; k++) {
-						average += cost.cost(output[k], target[k]);
+					for (int l = 0; l < output.length; l++) {
+						average += cost.cost(output[l], target[l]);
 					}
 
-					average /= (output.length * s);
+					average /= group.getSteps();
 
 					System.out.print("] - loss: " + average);
 
@@ -381,6 +1028,38 @@ public class Model {
 
 			schedule.endEpoch(i);
 		}
+
+		awaitCheckpoint();
+	}
+
+	/**
+	 * Warms up the model for inference. Every layer is forward propagated with synthetic input at batch sizes of powers of two up to
+	 * the max batch, so that the JIT compiles the parallel loops of activations and costs, and GPU kernels are compiled, before real
+	 * requests arrive. The model is left in eval mode, with the state of recurrent layers reset.
+	 *
+	 * @param maxBatch the largest batch size the model will be called with
+	 */
+	public void warmUp(int maxBatch) {
+		if (maxBatch <= 0)
+			throw new IllegalArgumentException("Max batch must be > 0.");
+
+		setMode(Layer.Mode.EVAL);
+
+		Random random = new Random(0);
+		for (int batchSize = 1; ; batchSize = Math.min(batchSize * 2, maxBatch)) {
+			float[] x = new float[batchSize * inputSize];
+			for (int i = 0; i < x.length; i++)
+				x[i] = (float) random.nextGaussian();
+
+			float[] output = forward(x, batchSize);
+			cost.cost(output, new float[output.length]);
+
+			if (batchSize == maxBatch)
+				break;
+		}
+
+		for (Layer layer : layers)
+			layer.resetState();
 	}
 
 	/**
@@ -401,6 +1080,20 @@ public class Model {
 	 * @return the output
 	 */
 	public float[][] forward(float[][] x, int batchSize) {
+		int[] batchSizes = new int[x.length];
+		Arrays.fill(batchSizes, batchSize);
+
+		return forward(x, batchSizes);
+	}
+
+	/**
+	 * Forward propagates recurrent layers with a batch size for each timestep, for packed sequences.
+	 *
+	 * @param x          the input
+	 * @param batchSizes the batch size of each timestep
+	 * @return the output
+	 */
+	public float[][] forward(float[][] x, int[] batchSizes) {
 		float[][] output = new float[x.length][];
 		for (int i = 0; i < x.length; i++) {
 			output[i] = new float[x[i].length];
@@ -416,7 +1109,7 @@ public class Model {
 					final int current = j;
 
 					tasks.add(() -> {
-						output[index - current] = layers[current].forward(output[index - current], batchSize);
+						output[index - current] = layers[current].forward(output[index - current], batchSizes[index - current]);
 						return null;
 					});
 				}
@@ -442,6 +1135,8 @@ public class Model {
 	public void backward(float[][] targets) {
 		float[][] delta = new float[targets.length][];
 
+		Cost cost = getScaledCost();
+
 		List<Callable<Void>> tasks = new ArrayList<>();
 		for (int i = targets.length - 1; i > -layers.length; i--) {
 			if (i >= 0) {
@@ -628,21 +1323,174 @@ public class Model {
 	 * @param file the file
 	 */
 	public void export(String file) {
-		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 16384))) {
-			// exporting layer amount
-			dos.writeInt(layers.length);
-			dos.writeInt(inputSize);
+		export(file, inference);
+	}
+
+	/**
+	 * Exports model to file in the background, so that training continues while it is written. Parameters and updater state are
+	 * copied into a buffer before this returns, so the checkpoint is consistent even as training updates them. The buffer is written
+	 * to a temporary file, which replaces the file once it is synced to disk, so a crash during the write leaves the previous
+	 * checkpoint intact.
+	 *
+	 * @param file the file
+	 */
+	public void checkpoint(String file) {
+		checkpoint(file, this, null);
+	}
+
+	/**
+	 * Exports a model to file in the background, followed by the progress of training, if any.
+	 *
+	 * @param file     the file
+	 * @param model    the model, which is this model or one of its replicas
+	 * @param progress the progress, or null
+	 */
+	private void checkpoint(String file, Model model, Progress progress) {
+		// a checkpoint waits for the previous one, so that at most one buffer is held
+		awaitCheckpoint();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ModelOutputStream dos = new ModelOutputStream(bos, inference)) {
+			model.export(dos);
+
+			if (progress != null)
+				progress.export(dos);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		checkpoint = CHECKPOINTS.submit(() -> {
+			Path path = Paths.get(file).toAbsolutePath();
+			Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+			try (FileOutputStream fos = new FileOutputStream(temporary.toFile())) {
+				bos.writeTo(fos);
+				fos.getFD().sync();
+			}
+
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return null;
+		});
+	}
+
+	/**
+	 * Sets the amount of updates between checkpoints taken during an epoch, on top of the checkpoints taken between epochs. Training
+	 * resumed from a checkpoint taken during an epoch continues from the next batch, without training on the batches before it again.
+	 *
+	 * @param checkpointSteps the amount of updates, or 0 to only take checkpoints between epochs
+	 * @see #resume(String)
+	 */
+	public void setCheckpointSteps(int checkpointSteps) {
+		if (checkpointSteps < 0)
+			throw new IllegalArgumentException("Checkpoint steps must be >= 0.");
+
+		this.checkpointSteps = checkpointSteps;
+	}
+
+	/**
+	 * Imports a model from a checkpoint taken by training, so that the next call to <code>train</code> or
+	 * <code>trainRecurrent</code> resumes where the checkpoint was taken. The epoch, the position in the epoch, the learning rate and the
+	 * state of the schedule and the dataset are restored, so the epoch is shuffled the same way and continues without training on any
+	 * sample twice. Training should be called with the same dataset and arguments, after setting the same schedule. Training from maps
+	 * resumes from the start of the epoch, as the order of their keys isn't kept between runs. Checkpoints can also be imported as a
+	 * plain model.
+	 *
+	 * @param file the path to the checkpoint
+	 * @return the model
+	 * @throws IOException if there is an error reading from the file, or the file isn't a training checkpoint
+	 */
+	public static Model resume(String file) throws IOException {
+		try (ModelInputStream dis = new ModelInputStream(new BufferedInputStream(new FileInputStream(file), 16384))) {
+			Model model = new Model(dis);
+			model.resumed = new Progress(dis);
+
+			return model;
+		} catch (EOFException e) {
+			throw new IOException("File is not a training checkpoint.", e);
+		}
+	}
+
+	/**
+	 * Waits for the last checkpoint to be written.
+	 */
+	public void awaitCheckpoint() {
+		if (checkpoint == null)
+			return;
+
+		try {
+			checkpoint.get();
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		}
+
+		checkpoint = null;
+	}
+
+	/**
+	 * Exports model to file for inference. Updater state is left out, so the file is about a third of the size, and imported models
+	 * skip creating updaters. Imported models can only be evaluated.
+	 *
+	 * @param file the file
+	 */
+	public void exportForInference(String file) {
+		export(file, true);
+	}
 
-			updaterType.export(dos);
+	private void export(String file, boolean inference) {
+		try (ModelOutputStream dos = new ModelOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 16384),
+			inference)) {
+			export(dos);
 
-			// exporting layers
-			for (Layer layer : layers) {
-				layer.getType().export(dos);
-				layer.export(dos);
+			System.out.println("Exported to: " + file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Exports model to a model output stream.
+	 *
+	 * @param dos the output stream
+	 * @throws IOException if there is an error writing to the stream
+	 */
+	void export(ModelOutputStream dos) throws IOException {
+		dos.writeInt(MAGIC);
+		dos.writeInt(VERSION);
+		dos.writeInt(dos.isInference() ? INFERENCE : 0);
+
+		// exporting layer amount
+		dos.writeInt(layers.length);
+		dos.writeInt(inputSize);
+
+		updaterConfig.export(dos);
+
+		// exporting layers, each prefixed with its length
+		for (Layer layer : layers) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ModelOutputStream part = dos.split(bos)) {
+				layer.getType().export(part);
+				layer.export(part);
 			}
 
-			// exporting cost
-			cost.getType().export(dos);
+			dos.writeInt(bos.size());
+			bos.writeTo(dos);
+		}
+
+		// exporting cost
+		cost.getType().export(dos);
+	}
+
+	/**
+	 * Exports model to file with its tensors compressed. Tensors are split into chunks that are compressed in parallel, and are
+	 * decompressed in parallel when the file is imported with {@link #Model(String)}.
+	 *
+	 * @param file    the file
+	 * @param shuffle whether to shuffle the bytes of floats before compression, which usually compresses weights better
+	 */
+	public void exportCompressed(String file, boolean shuffle) {
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false), 16384))) {
+			CompressedModel.write(dos, this, inference, shuffle);
 
 			System.out.println("Exported to: " + file);
 		} catch (IOException e) {
@@ -650,6 +1498,175 @@ public class Model {
 		}
 	}
 
+	/**
+	 * Exports model to a model file, which can be mapped into memory when it is loaded.
+	 *
+	 * @param file the file
+	 * @see ModelFile
+	 */
+	public void exportMapped(String file) {
+		try {
+			ModelFile.write(file, this, inference);
+
+			System.out.println("Exported to: " + file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Progress is the state of training that checkpoints save after the model, so that training can be resumed.
+	 */
+	private static class Progress {
+		private static final int MAGIC = 0x4E4E5450;
+
+		private final int epoch, position, batch;
+		private final float learningRate, decay;
+		private final byte[] schedule, dataset;
+
+		/**
+		 * Saves the progress of training.
+		 *
+		 * @param epoch         the epoch
+		 * @param position      the amount of samples of the epoch already trained on
+		 * @param batch         the amount of batches trained on
+		 * @param dataset       the state of the dataset at the start of the epoch
+		 * @param updaterConfig the updater config
+		 * @param schedule      the schedule
+		 */
+		Progress(int epoch, int position, int batch, byte[] dataset, UpdaterConfig updaterConfig, Schedule schedule) {
+			this.epoch = epoch;
+			this.position = position;
+			this.batch = batch;
+			this.dataset = dataset;
+
+			learningRate = updaterConfig.getLearningRate();
+			decay = updaterConfig.getDecay();
+
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (DataOutputStream dos = new DataOutputStream(bos)) {
+				schedule.exportState(dos);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			this.schedule = bos.toByteArray();
+		}
+
+		Progress(DataInputStream dis) throws IOException {
+			if (dis.readInt() != MAGIC)
+				throw new IOException("File is not a training checkpoint.");
+
+			epoch = dis.readInt();
+			position = dis.readInt();
+			batch = dis.readInt();
+			learningRate = dis.readFloat();
+			decay = dis.readFloat();
+
+			schedule = new byte[dis.readInt()];
+			dis.readFully(schedule);
+
+			dataset = new byte[dis.readInt()];
+			dis.readFully(dataset);
+		}
+
+		static byte[] exportState(Dataset dataset) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (DataOutputStream dos = new DataOutputStream(bos)) {
+				dataset.exportState(dos);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			return bos.toByteArray();
+		}
+
+		void export(DataOutputStream dos) throws IOException {
+			dos.writeInt(MAGIC);
+			dos.writeInt(epoch);
+			dos.writeInt(position);
+			dos.writeInt(batch);
+			dos.writeFloat(learningRate);
+			dos.writeFloat(decay);
+
+			dos.writeInt(schedule.length);
+			dos.write(schedule);
+
+			dos.writeInt(dataset.length);
+			dos.write(dataset);
+		}
+
+		/**
+		 * Restores the dataset to the start of the epoch.
+		 *
+		 * @param dataset the dataset
+		 */
+		void restore(Dataset dataset) {
+			if (this.dataset.length > 0) {
+				try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(this.dataset))) {
+					dataset.importState(dis);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		/**
+		 * Restores the hyper-parameters and schedule, after the schedule is initialized.
+		 *
+		 * @param updaterConfig the updater config
+		 * @param schedule      the schedule
+		 */
+		void restore(UpdaterConfig updaterConfig, Schedule schedule) {
+			updaterConfig.init(learningRate);
+			updaterConfig.setDecay(decay);
+
+			if (this.schedule.length > 0) {
+				try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(this.schedule))) {
+					schedule.importState(dis);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scales the derivative of a cost, for loss scaling.
+	 */
+	private static class ScaledCost implements Cost {
+		private final Cost cost;
+		private final float scale;
+
+		private ScaledCost(Cost cost, float scale) {
+			this.cost = cost;
+			this.scale = scale;
+		}
+
+		public CostType getType() {
+			return cost.getType();
+		}
+
+		public float cost(float[] out, float[] targets) {
+			return cost.cost(out, targets);
+		}
+
+		public float[] derivative(float[] output, float[] targets, int batchSize) {
+			return scale(cost.derivative(output, targets, batchSize));
+		}
+
+		public float[] derivativeSoftmax(float[] output, float[] targets, int batchSize) {
+			return scale(cost.derivativeSoftmax(output, targets, batchSize));
+		}
+
+		private float[] scale(float[] derivative) {
+			for (int i = 0; i < derivative.length; i++)
+				derivative[i] *= scale;
+
+			return derivative;
+		}
+	}
+
 	/**
 	 * Builder for models.
 	 */
@@ -659,6 +1676,8 @@ public class Model {
 		private CostType cost;
 		private UpdaterType updaterType;
 		private int[] inputDimensions;
+		private float clipNorm;
+		private Precision precision;
 
 		/**
 		 * Adds a layer.
@@ -706,13 +1725,42 @@ public class Model {
 			return this;
 		}
 
+		/**
+		 * Sets the maximum global L2 norm of the gradients. Gradients of all layers are scaled down together when they are larger.
+		 *
+		 * @param clipNorm the clip norm, or 0 to disable clipping
+		 * @return the builder
+		 */
+		public Builder clipNorm(float clipNorm) {
+			this.clipNorm = clipNorm;
+			return this;
+		}
+
+		/**
+		 * Sets the precision of activations and deltas, with weights kept in single precision.
+		 *
+		 * @param precision the precision, or null for single precision
+		 * @return the builder
+		 */
+		public Builder precision(Precision precision) {
+			this.precision = precision;
+			return this;
+		}
+
 		/**
 		 * Builds the model.
 		 *
 		 * @return the model
 		 */
 		public Model build() {
-			return new Model(LAYERS.toArray(new Layer[0]), cost, updaterType, inputDimensions);
+			Objects.requireNonNull(updaterType);
+
+			// each model has its own hyper-parameters
+			Model model = new Model(LAYERS.toArray(new Layer[0]), cost, new UpdaterConfig(updaterType), inputDimensions);
+			model.setClipNorm(clipNorm);
+			model.setPrecision(precision);
+
+			return model;
 		}
 	}
 }
@@ -0,0 +1,282 @@
+package neuralnet;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Model caches hold the most recently used models within a memory budget, for serving more models than fit in memory. The memory of
+ * each model is estimated from its parameters, and the least recently used models are evicted once the budget is exceeded.
+ * Concurrent requests for a model that is not cached wait for a single load. Each model is held in a pool of replicas, which requests
+ * lease, since a model can't serve two requests at once.
+ */
+public class ModelCache {
+	private final long budget;
+	private final Loader loader;
+	private final int maxBatch, replicas;
+
+	// access order, so that the eldest entry is the least recently used
+	private final LinkedHashMap<String, ModelPool> models = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, FutureTask<ModelPool>> loading = new HashMap<>();
+	private long bytes;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadTime = new LongAdder();
+
+	/**
+	 * Creates a model cache that imports models from files, keyed by their path.
+	 *
+	 * @param budget the amount of bytes that cached models can hold
+	 */
+	public ModelCache(long budget) {
+		this(budget, 0);
+	}
+
+	/**
+	 * Creates a model cache that imports models from files, keyed by their path, and warms them up once they are imported.
+	 *
+	 * @param budget   the amount of bytes that cached models can hold
+	 * @param maxBatch the largest batch size that models are warmed up with, or 0 to skip warming up
+	 * @see Model#warmUp(int)
+	 */
+	public ModelCache(long budget, int maxBatch) {
+		this(budget, maxBatch, 1);
+	}
+
+	/**
+	 * Creates a model cache that imports models from files, keyed by their path, and serves each model from several replicas.
+	 *
+	 * @param budget   the amount of bytes that cached models can hold, counting every replica
+	 * @param maxBatch the largest batch size that replicas are warmed up with, or 0 to skip warming up
+	 * @param replicas the amount of replicas of each model, which is the amount of requests a model serves at once
+	 * @see ModelPool
+	 */
+	public ModelCache(long budget, int maxBatch, int replicas) {
+		this(budget, file -> Model.load(file, 0), maxBatch, replicas);
+	}
+
+	/**
+	 * Creates a model cache.
+	 *
+	 * @param budget the amount of bytes that cached models can hold
+	 * @param loader loads the model of a key, such as a path or a version
+	 */
+	public ModelCache(long budget, Loader loader) {
+		this(budget, loader, 0, 1);
+	}
+
+	/**
+	 * Creates a model cache that serves each model from several replicas.
+	 *
+	 * @param budget   the amount of bytes that cached models can hold, counting every replica
+	 * @param loader   loads the model of a key, such as a path or a version
+	 * @param maxBatch the largest batch size that replicas are warmed up with, or 0 to skip warming up
+	 * @param replicas the amount of replicas of each model, which is the amount of requests a model serves at once
+	 * @see ModelPool
+	 */
+	public ModelCache(long budget, Loader loader, int maxBatch, int replicas) {
+		if (budget <= 0)
+			throw new IllegalArgumentException("Budget must be > 0.");
+		if (maxBatch < 0)
+			throw new IllegalArgumentException("Max batch must be >= 0.");
+		if (replicas <= 0)
+			throw new IllegalArgumentException("Replica amount must be > 0.");
+
+		this.budget = budget;
+		this.loader = loader;
+		this.maxBatch = maxBatch;
+		this.replicas = replicas;
+	}
+
+	/**
+	 * Acquires a lease on a model, loading it if it is not cached, then waiting until one of its replicas is idle. The lease must be
+	 * closed once the request is done, so that its replica serves other requests.
+	 *
+	 * @param key the key of the model
+	 * @return the lease
+	 * @throws IOException if the model could not be loaded
+	 */
+	public ModelPool.Lease get(String key) throws IOException {
+		ModelPool pool = null;
+		FutureTask<ModelPool> task = null;
+		boolean load = false;
+
+		synchronized (this) {
+			pool = models.get(key);
+			if (pool != null) {
+				hits.increment();
+			} else {
+				misses.increment();
+
+				// requests during a load wait for it, instead of loading again
+				task = loading.get(key);
+				if (task == null) {
+					task = new FutureTask<>(() -> new ModelPool(loader.load(key), replicas, maxBatch));
+					loading.put(key, task);
+					load = true;
+				}
+			}
+		}
+
+		// requests wait for a replica outside the lock, so that other models are still served
+		if (pool != null)
+			return pool.acquire();
+
+		if (load) {
+			long start = System.nanoTime();
+			task.run();
+
+			loads.increment();
+			loadTime.add(System.nanoTime() - start);
+
+			synchronized (this) {
+				// a load that was invalidated in the meantime may have read the replaced model, so it isn't cached
+				ModelPool loaded = getNow(task);
+				if (loading.remove(key, task) && loaded != null)
+					put(key, loaded);
+			}
+		}
+
+		try {
+			return task.get().acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static ModelPool getNow(FutureTask<ModelPool> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException | ExecutionException e) {
+			return null;
+		}
+	}
+
+	private void put(String key, ModelPool pool) {
+		models.put(key, pool);
+		bytes += pool.getBytes();
+
+		// the model just loaded is kept, even if it exceeds the budget alone, and evicted models stay with any open leases
+		Iterator<ModelPool> iterator = models.values().iterator();
+		while (bytes > budget && models.size() > 1) {
+			ModelPool eldest = iterator.next();
+
+			iterator.remove();
+			bytes -= eldest.getBytes();
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Removes a model from the cache, so that the next request loads it again, such as after its file was replaced. A load in progress
+	 * still finishes for the requests waiting on it, but its model is not cached, and later requests start a new load.
+	 *
+	 * @param key the key of the model
+	 */
+	public synchronized void invalidate(String key) {
+		loading.remove(key);
+
+		ModelPool pool = models.remove(key);
+		if (pool != null)
+			bytes -= pool.getBytes();
+	}
+
+	/**
+	 * Gets the amount of cached models.
+	 *
+	 * @return the amount of models
+	 */
+	public synchronized int size() {
+		return models.size();
+	}
+
+	/**
+	 * Estimates the memory held by cached models.
+	 *
+	 * @return the amount of bytes
+	 * @see Model#getParameterBytes()
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the amount of requests for a cached model.
+	 *
+	 * @return the amount of hits
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the amount of requests for a model that was not cached, including requests that waited for another request's load.
+	 *
+	 * @return the amount of misses
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the amount of models evicted to stay within the budget.
+	 *
+	 * @return the amount of evictions
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Gets the amount of loads, including failed loads.
+	 *
+	 * @return the amount of loads
+	 */
+	public long getLoads() {
+		return loads.sum();
+	}
+
+	/**
+	 * Gets the total time spent loading models.
+	 *
+	 * @return the load time in milliseconds
+	 */
+	public long getLoadTime() {
+		return loadTime.sum() / 1000000;
+	}
+
+	public String toString() {
+		long requests = getHits() + getMisses();
+		return String.format("models: %d\tbytes: %d\thit rate: %.2f%%\tevictions: %d\tloads: %d\tload time: %dms", size(), getBytes(),
+			requests == 0 ? 0 : 100.0 * getHits() / requests, getEvictions(), getLoads(), getLoadTime());
+	}
+
+	/**
+	 * Loaders load the model of a key.
+	 */
+	public interface Loader {
+		/**
+		 * Loads a model.
+		 *
+		 * @param key the key of the model
+		 * @return the model
+		 * @throws IOException if the model could not be loaded
+		 */
+		Model load(String key) throws IOException;
+	}
+}
@@ -0,0 +1,271 @@
+package neuralnet;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model files store the tensors of a model in aligned blocks, which are mapped into memory when the file is opened. Tensors are only
+ * read from disk when they are accessed, and are copied straight from the mapping into layers, so large models load without
+ * deserializing every value through a stream.
+ * <p>
+ * The file format is a header of little-endian values: magic, version, tensor amount, alignment, structure length and table position.
+ * The structure of the model follows the header, in the same format as exported models, except that tensors are replaced with their
+ * index. The tensor table holds the position and length of each tensor, and the tensors follow as little-endian floats, each aligned
+ * to the alignment.
+ */
+public class ModelFile {
+	static final int MAGIC = 0x4E4E4D46;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int ALIGNMENT = 64;
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final byte[] structure;
+	private final FloatBuffer[] tensors;
+
+	private ModelFile(byte[] structure, FloatBuffer[] tensors) {
+		this.structure = structure;
+		this.tensors = tensors;
+	}
+
+	/**
+	 * Writes a model to a file.
+	 *
+	 * @param file  the path to the file
+	 * @param model the model
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public static void write(String file, Model model) throws IOException {
+		write(file, model, model.isInference());
+	}
+
+	/**
+	 * Writes a model to a file, optionally for inference, without the state of updaters.
+	 *
+	 * @param file      the path to the file
+	 * @param model     the model
+	 * @param inference whether to leave out updater state
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public static void write(String file, Model model, boolean inference) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		List<float[]> tensors;
+
+		try (TableOutput dos = new TableOutput(bos, inference)) {
+			model.export(dos);
+			tensors = dos.getTensors();
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			raf.setLength(0);
+
+			long tablePosition = HEADER_SIZE + bos.size();
+			long position = align(tablePosition + 16L * tensors.size());
+
+			ByteBuffer table = ByteBuffer.allocate(16 * tensors.size()).order(ByteOrder.LITTLE_ENDIAN);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+			for (float[] tensor : tensors) {
+				table.putLong(position).putLong(tensor.length);
+
+				for (int i = 0; i < tensor.length; i += CHUNK_SIZE) {
+					int length = Math.min(CHUNK_SIZE, tensor.length - i);
+
+					buffer.clear();
+					buffer.asFloatBuffer().put(tensor, i, length);
+					buffer.limit(length * Float.BYTES);
+
+					while (buffer.hasRemaining())
+						position += channel.write(buffer, position);
+				}
+
+				position = align(position);
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(tensors.size()).putInt(ALIGNMENT).putLong(bos.size()).putLong(tablePosition);
+			header.clear();
+			table.flip();
+
+			channel.write(header, 0);
+			channel.write(ByteBuffer.wrap(bos.toByteArray()), HEADER_SIZE);
+			channel.write(table, tablePosition);
+
+			// the last tensor is padded too, so every block has the same alignment
+			raf.setLength(position);
+		}
+	}
+
+	/**
+	 * Opens a model file. Tensors are mapped, but not read.
+	 *
+	 * @param file the path to the file
+	 * @return the model file
+	 * @throws IOException if there is an error reading from the file
+	 */
+	public static ModelFile open(String file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("Invalid model file.");
+
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (header.getInt() != MAGIC)
+				throw new IOException("Invalid model file.");
+			if (header.getInt() != VERSION)
+				throw new IOException("Unsupported model version.");
+
+			int tensorAmount = header.getInt();
+			header.getInt();
+			long structureLength = header.getLong();
+			long tablePosition = header.getLong();
+
+			if (tablePosition + 16L * tensorAmount > channel.size())
+				throw new IOException("File is too short.");
+
+			byte[] structure = new byte[(int) structureLength];
+			channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, structureLength).get(structure);
+
+			ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tablePosition, 16L * tensorAmount)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+			// mappings stay valid after the channel is closed
+			FloatBuffer[] tensors = new FloatBuffer[tensorAmount];
+			for (int i = 0; i < tensorAmount; i++) {
+				long position = table.getLong();
+				long length = table.getLong();
+
+				if (position + length * Float.BYTES > channel.size())
+					throw new IOException("File is too short.");
+
+				tensors[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+					.asFloatBuffer();
+			}
+
+			return new ModelFile(structure, tensors);
+		}
+	}
+
+	/**
+	 * Checks whether a file is a model file, by its magic, so that loaders of exported models can open it as one.
+	 *
+	 * @param file the path to the file
+	 * @return whether the file is a model file
+	 * @throws IOException if there is an error reading from the file
+	 */
+	static boolean isModelFile(String file) throws IOException {
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			return Integer.reverseBytes(dis.readInt()) == MAGIC;
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+
+	private static long align(long position) {
+		return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	/**
+	 * Gets the amount of tensors in this file.
+	 *
+	 * @return the tensor amount
+	 */
+	public int getTensorAmount() {
+		return tensors.length;
+	}
+
+	/**
+	 * Gets a view of a tensor. Values are paged in from the file as they are read.
+	 *
+	 * @param index the index of the tensor
+	 * @return the tensor
+	 */
+	public FloatBuffer getTensor(int index) {
+		return tensors[index].duplicate();
+	}
+
+	/**
+	 * Loads the model in this file.
+	 *
+	 * @return the model
+	 * @throws IOException if the structure of the model is invalid
+	 */
+	public Model load() throws IOException {
+		try (ModelInputStream dis = input()) {
+			return new Model(dis);
+		}
+	}
+
+	/**
+	 * Creates a stream over the structure of the model in this file, which reads tensors from the mapping.
+	 *
+	 * @return the stream
+	 */
+	ModelInputStream input() {
+		return new TableInput(new ByteArrayInputStream(structure));
+	}
+
+	/**
+	 * Table outputs write the structure of a model, collecting its tensors.
+	 */
+	static class TableOutput extends ModelOutputStream {
+		private final List<float[]> tensors;
+
+		TableOutput(OutputStream out, boolean inference) {
+			this(out, inference, new ArrayList<>());
+		}
+
+		private TableOutput(OutputStream out, boolean inference, List<float[]> tensors) {
+			super(out, inference);
+
+			this.tensors = tensors;
+		}
+
+		ModelOutputStream split(OutputStream out) {
+			return new TableOutput(out, isInference(), tensors);
+		}
+
+		void writeTensor(float[] tensor) throws IOException {
+			writeInt(tensors.size());
+			tensors.add(tensor);
+		}
+
+		List<float[]> getTensors() {
+			return tensors;
+		}
+	}
+
+	/**
+	 * Table inputs read the structure of a model, copying its tensors from the mapped file.
+	 */
+	class TableInput extends TensorInput {
+		TableInput(InputStream in) {
+			super(in);
+		}
+
+		ModelInputStream split(byte[] bytes) {
+			TableInput dis = new TableInput(new ByteArrayInputStream(bytes));
+			dis.setInference(isInference());
+
+			return dis;
+		}
+
+		void readTensor(float[] tensor) throws IOException {
+			// tensors are read by index, so that layers are read in parallel
+			int index = readInt();
+			if (index < 0 || index >= tensors.length)
+				throw new IOException("Invalid tensor table.");
+
+			FloatBuffer buffer = getTensor(index);
+			if (buffer.remaining() != tensor.length)
+				throw new IOException("Tensor sizes do not match.");
+
+			buffer.get(tensor);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package neuralnet;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+
+/**
+ * Model input streams are the streams that models are imported from. Whether the model was exported for inference is read from its
+ * header, so that layers skip creating updaters.
+ */
+public class ModelInputStream extends DataInputStream {
+	private boolean inference;
+
+	/**
+	 * Creates a model input stream.
+	 *
+	 * @param in the underlying input stream
+	 */
+	public ModelInputStream(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * Gets whether the model was exported for inference.
+	 *
+	 * @return whether updater state is left out
+	 */
+	public boolean isInference() {
+		return inference;
+	}
+
+	/**
+	 * Gets whether a stream reads a model exported for inference, so that layers can skip creating updaters and gradients.
+	 *
+	 * @param dis the input stream
+	 * @return whether updater state is left out
+	 */
+	public static boolean isInference(DataInputStream dis) {
+		return dis instanceof ModelInputStream && ((ModelInputStream) dis).isInference();
+	}
+
+	void setInference(boolean inference) {
+		this.inference = inference;
+	}
+
+	/**
+	 * Gets whether parts of the model can be read in any order. Streams that read tensors in the order they were written can only
+	 * read parts in order.
+	 *
+	 * @return whether parts can be read in parallel
+	 */
+	boolean isRandomAccess() {
+		return true;
+	}
+
+	/**
+	 * Creates a stream that reads part of a model, such as a layer, from its bytes, so that parts are read in parallel.
+	 *
+	 * @param bytes the bytes of the part
+	 * @return the stream
+	 */
+	ModelInputStream split(byte[] bytes) {
+		ModelInputStream dis = new ModelInputStream(new ByteArrayInputStream(bytes));
+		dis.setInference(inference);
+
+		return dis;
+	}
+}
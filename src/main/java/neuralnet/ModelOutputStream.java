@@ -0,0 +1,43 @@
+package neuralnet;
+
+import java.io.DataOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Model output streams are the streams that models are exported to. Models exported for inference leave out the state of their
+ * updaters, which is only needed to continue training.
+ */
+public class ModelOutputStream extends DataOutputStream {
+	private final boolean inference;
+
+	/**
+	 * Creates a model output stream.
+	 *
+	 * @param out       the underlying output stream
+	 * @param inference whether the model is exported for inference
+	 */
+	public ModelOutputStream(OutputStream out, boolean inference) {
+		super(out);
+
+		this.inference = inference;
+	}
+
+	/**
+	 * Gets whether the model is exported for inference.
+	 *
+	 * @return whether updater state is left out
+	 */
+	public boolean isInference() {
+		return inference;
+	}
+
+	/**
+	 * Creates a stream that writes part of a model, such as a layer, so that the part can be written with its length.
+	 *
+	 * @param out the output stream of the part
+	 * @return the stream
+	 */
+	ModelOutputStream split(OutputStream out) {
+		return new ModelOutputStream(out, inference);
+	}
+}
@@ -0,0 +1,147 @@
+package neuralnet;
+
+import neuralnet.layers.Layer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Model pools hold replicas of a model for serving. Layers keep buffers and recurrent state in fields during forward propagation, so a
+ * model can't serve two requests at once. Each request leases a replica and has exclusive use of it until the lease is closed, so up
+ * to as many requests as there are replicas run in parallel, and the rest wait in the order they arrived.
+ */
+public class ModelPool {
+	private final BlockingQueue<Model> idle;
+	private final int size;
+	private final long bytes;
+
+	/**
+	 * Creates a pool from a model and copies of it. Copies are imported from the model exported for inference, so they hold neither
+	 * updaters nor gradients.
+	 *
+	 * @param model    the model, which is the first replica
+	 * @param size     the amount of replicas
+	 * @param maxBatch the largest batch size that replicas are warmed up with, or 0 to skip warming up
+	 * @see Model#warmUp(int)
+	 */
+	public ModelPool(Model model, int size, int maxBatch) {
+		if (size <= 0)
+			throw new IllegalArgumentException("Size must be > 0.");
+		if (maxBatch < 0)
+			throw new IllegalArgumentException("Max batch must be >= 0.");
+
+		this.size = size;
+		idle = new ArrayBlockingQueue<>(size, true);
+
+		long bytes = 0;
+		for (int i = 0; i < size; i++) {
+			Model replica = i == 0 ? model : copy(model);
+
+			// the first calls compile kernels and grow buffers, which shouldn't happen on requests
+			if (maxBatch > 0)
+				replica.warmUp(maxBatch);
+			else
+				replica.setMode(Layer.Mode.EVAL);
+
+			bytes += replica.getParameterBytes();
+			idle.add(replica);
+		}
+
+		this.bytes = bytes;
+	}
+
+	private static Model copy(Model model) {
+		try {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (ModelOutputStream dos = new ModelOutputStream(bos, true)) {
+				model.export(dos);
+			}
+
+			try (ModelInputStream dis = new ModelInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+				return new Model(dis);
+			}
+		} catch (IOException e) {
+			// streams in memory don't fail
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Acquires a lease on a replica, waiting until one is idle. The lease must be closed once the request is done, so that the replica
+	 * serves other requests.
+	 *
+	 * @return the lease
+	 */
+	public Lease acquire() {
+		return new Lease(this, take());
+	}
+
+	Model take() {
+		try {
+			return idle.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Gets the amount of replicas.
+	 *
+	 * @return the amount of replicas
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Estimates the memory held by every replica.
+	 *
+	 * @return the amount of bytes
+	 * @see Model#getParameterBytes()
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Leases hold a replica while a request uses it.
+	 */
+	public static class Lease implements AutoCloseable {
+		private final ModelPool pool;
+		private final Model model;
+		boolean closed;
+
+		Lease(ModelPool pool, Model model) {
+			this.pool = pool;
+			this.model = model;
+		}
+
+		/**
+		 * Gets the leased replica. The replica must only be used by this lease, and not after it is closed.
+		 *
+		 * @return the replica
+		 */
+		public Model getModel() {
+			if (closed)
+				throw new IllegalStateException("Lease is closed.");
+
+			return model;
+		}
+
+		/**
+		 * Closes the lease, returning the replica to the pool.
+		 */
+		public void close() {
+			if (closed)
+				return;
+
+			closed = true;
+			pool.idle.add(model);
+		}
+	}
+}
@@ -0,0 +1,225 @@
+package neuralnet;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Model registries serve a model that can be replaced while it is in use. New versions are imported and warmed up in the background,
+ * then swapped in atomically. Requests acquire a lease on the current version, so requests that started before a swap finish on the
+ * old version, which is released once its last lease is closed.
+ * <p>
+ * Each version is a pool of warmed up replicas, since a model can't serve two requests at once. A lease has exclusive use of a replica
+ * until it is closed, so requests run in parallel up to the amount of replicas, and acquiring a lease waits while every replica of the
+ * current version is in use.
+ *
+ * @see ModelPool
+ */
+public class ModelRegistry implements AutoCloseable {
+	private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "model-registry");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final int maxBatch, replicas;
+	private final AtomicReference<Version> current = new AtomicReference<>();
+	private final Set<Version> versions = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger versionCount = new AtomicInteger();
+
+	/**
+	 * Creates a model registry.
+	 *
+	 * @param maxBatch the largest batch size that new versions are warmed up with before they are swapped in, or 0 to skip warming up
+	 * @see Model#warmUp(int)
+	 */
+	public ModelRegistry(int maxBatch) {
+		this(maxBatch, 1);
+	}
+
+	/**
+	 * Creates a model registry that serves each version from several replicas.
+	 *
+	 * @param maxBatch the largest batch size that new versions are warmed up with before they are swapped in, or 0 to skip warming up
+	 * @param replicas the amount of replicas of each version, which is the amount of requests served at once
+	 * @see Model#warmUp(int)
+	 */
+	public ModelRegistry(int maxBatch, int replicas) {
+		if (maxBatch < 0)
+			throw new IllegalArgumentException("Max batch must be >= 0.");
+		if (replicas <= 0)
+			throw new IllegalArgumentException("Replica amount must be > 0.");
+
+		this.maxBatch = maxBatch;
+		this.replicas = replicas;
+	}
+
+	/**
+	 * Imports a model from a file in the background, warms it up, then swaps it in. The current version keeps serving until then.
+	 *
+	 * @param file the path to the file
+	 * @return the future of the model, which fails if the file could not be imported
+	 */
+	public Future<Model> load(String file) {
+		return loader.submit(() -> {
+			Model model = Model.load(file, 0);
+
+			swap(model);
+			return model;
+		});
+	}
+
+	/**
+	 * Replicates a model and warms up the replicas, then swaps them in as the current version.
+	 *
+	 * @param model the model, which is the first replica
+	 * @return the number of the new version, starting from 1
+	 */
+	public int swap(Model model) {
+		Version version = new Version(new ModelPool(model, replicas, maxBatch), versionCount.incrementAndGet());
+		versions.add(version);
+
+		Version previous = current.getAndSet(version);
+		if (previous != null)
+			previous.release();
+
+		return version.number;
+	}
+
+	/**
+	 * Acquires a lease on the current version, waiting until one of its replicas is idle. The lease must be closed once the request is
+	 * done, so that the replica serves other requests and old versions are released.
+	 *
+	 * @return the lease
+	 */
+	public Lease acquire() {
+		while (true) {
+			Version version = current.get();
+
+			if (version == null)
+				throw new IllegalStateException("No model is loaded.");
+
+			// a version swapped out and drained in the meantime can't be retained again
+			if (version.retain()) {
+				Model model;
+				try {
+					model = version.pool.take();
+				} catch (RuntimeException e) {
+					version.release();
+					throw e;
+				}
+
+				return new Lease(version, model);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of the current version.
+	 *
+	 * @return the version number, or 0 if no model is loaded
+	 */
+	public int getVersion() {
+		Version version = current.get();
+		return version == null ? 0 : version.number;
+	}
+
+	/**
+	 * Gets the amount of versions held in memory, which is the current version and old versions with open leases.
+	 *
+	 * @return the amount of versions
+	 */
+	public int getVersionAmount() {
+		return versions.size();
+	}
+
+	/**
+	 * Estimates the memory held by every replica of every version in memory. During a swap, this includes both the old and new versions.
+	 *
+	 * @return the amount of bytes
+	 * @see Model#getParameterBytes()
+	 */
+	public long getMemoryBytes() {
+		long bytes = 0;
+		for (Version version : versions)
+			bytes += version.pool.getBytes();
+
+		return bytes;
+	}
+
+	/**
+	 * Stops loading new versions and releases the current version, once its leases are closed.
+	 */
+	public void close() {
+		loader.shutdownNow();
+
+		Version previous = current.getAndSet(null);
+		if (previous != null)
+			previous.release();
+	}
+
+	private class Version {
+		private final ModelPool pool;
+		private final int number;
+
+		// the registry holds a reference until the version is swapped out
+		private final AtomicInteger references = new AtomicInteger(1);
+
+		private Version(ModelPool pool, int number) {
+			this.pool = pool;
+			this.number = number;
+		}
+
+		private boolean retain() {
+			int count;
+			do {
+				count = references.get();
+
+				if (count == 0)
+					return false;
+			} while (!references.compareAndSet(count, count + 1));
+
+			return true;
+		}
+
+		private void release() {
+			if (references.decrementAndGet() == 0)
+				versions.remove(this);
+		}
+	}
+
+	/**
+	 * Leases hold a replica of a version while a request uses it.
+	 */
+	public static class Lease extends ModelPool.Lease {
+		private final ModelRegistry.Version version;
+
+		private Lease(ModelRegistry.Version version, Model model) {
+			super(version.pool, model);
+
+			this.version = version;
+		}
+
+		/**
+		 * Gets the number of the leased version.
+		 *
+		 * @return the version number
+		 */
+		public int getVersion() {
+			return version.number;
+		}
+
+		/**
+		 * Closes the lease, returning the replica to its version, and releasing the version if it was swapped out and this was its last
+		 * lease.
+		 */
+		public void close() {
+			if (closed)
+				return;
+
+			super.close();
+			version.release();
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package neuralnet;
+
+import neuralnet.layers.Layer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parameter arenas lay out the parameters and gradients of every layer in a single flat index space. Element-wise work over the whole
+ * model, such as zeroing, norms and scaling, runs as one sweep split into evenly sized chunks regardless of tensor boundaries, so a
+ * single large layer no longer leaves the other threads idle.
+ * <p>
+ * Layers keep their own arrays, which the arena indexes into, since the kernels of each layer work on whole arrays. Layers may replace
+ * their gradient arrays, so the arena collects the arrays again on each sweep. Gradients are null for layers that have not back
+ * propagated yet, and are skipped by gradient sweeps.
+ */
+public class ParameterArena {
+	private final Layer[] layers;
+
+	private float[][] parameters, gradients;
+	// offsets of each tensor in the flat index space, with the total size at the end
+	private int[] offsets;
+
+	/**
+	 * Creates an arena over the parameters of layers.
+	 *
+	 * @param layers the layers
+	 */
+	public ParameterArena(Layer[] layers) {
+		this.layers = layers;
+
+		refresh();
+	}
+
+	private void refresh() {
+		List<float[][]> tensors = new ArrayList<>();
+		for (Layer layer : layers)
+			tensors.addAll(Arrays.asList(layer.getParameters()));
+
+		parameters = new float[tensors.size()][];
+		gradients = new float[tensors.size()][];
+		offsets = new int[tensors.size() + 1];
+
+		for (int i = 0; i < tensors.size(); i++) {
+			parameters[i] = tensors.get(i)[0];
+			gradients[i] = tensors.get(i)[1];
+			offsets[i + 1] = offsets[i] + parameters[i].length;
+		}
+	}
+
+	/**
+	 * Gets the total amount of parameters.
+	 *
+	 * @return the amount of parameters
+	 */
+	public int size() {
+		return offsets[offsets.length - 1];
+	}
+
+	/**
+	 * Sweeps over every parameter in parallel. Each chunk of the flat index space is split at tensor boundaries into segments.
+	 *
+	 * @param segment the loop over a segment
+	 */
+	public void sweep(Segment segment) {
+		refresh();
+
+		Sweep.run(size(), (start, end) -> {
+			// finding the tensor holding the start of the chunk
+			int tensor = Arrays.binarySearch(offsets, start);
+			if (tensor < 0)
+				tensor = -tensor - 2;
+
+			while (start < end) {
+				// skipping empty tensors
+				while (offsets[tensor + 1] <= start)
+					tensor++;
+
+				int segmentEnd = Math.min(end, offsets[tensor + 1]);
+				segment.apply(parameters[tensor], gradients[tensor], start - offsets[tensor], segmentEnd - offsets[tensor], start);
+
+				start = segmentEnd;
+			}
+		});
+	}
+
+	/**
+	 * Sets every gradient to zero.
+	 */
+	public void zeroGradients() {
+		sweep((parameters, gradients, start, end, offset) -> {
+			if (gradients != null)
+				Arrays.fill(gradients, start, end, 0);
+		});
+	}
+
+	/**
+	 * Scales every gradient.
+	 *
+	 * @param scale the scale
+	 */
+	public void scaleGradients(float scale) {
+		sweep((parameters, gradients, start, end, offset) -> {
+			if (gradients == null)
+				return;
+
+			for (int i = start; i < end; i++)
+				gradients[i] *= scale;
+		});
+	}
+
+	/**
+	 * Calculates the L2 norm of every gradient together.
+	 *
+	 * @return the norm
+	 */
+	public double gradientNorm() {
+		double[] sums = new double[(size() + Sweep.CHUNK - 1) / Sweep.CHUNK];
+
+		// each chunk sums into its own slot, as chunks run in parallel
+		sweep((parameters, gradients, start, end, offset) -> {
+			if (gradients == null)
+				return;
+
+			double sum = 0;
+			for (int i = start; i < end; i++)
+				sum += gradients[i] * gradients[i];
+
+			sums[offset / Sweep.CHUNK] += sum;
+		});
+
+		double sum = 0;
+		for (double value : sums)
+			sum += value;
+
+		return Math.sqrt(sum);
+	}
+
+	/**
+	 * Copies every parameter into a flat array.
+	 *
+	 * @param flat the flat array, of the size of the arena
+	 */
+	public void read(float[] flat) {
+		if (flat.length != size())
+			throw new IllegalArgumentException("Array size does not match arena size.");
+
+		sweep((parameters, gradients, start, end, offset) -> System.arraycopy(parameters, start, flat, offset, end - start));
+	}
+
+	/**
+	 * Copies a flat array into every parameter.
+	 *
+	 * @param flat the flat array, of the size of the arena
+	 */
+	public void write(float[] flat) {
+		if (flat.length != size())
+			throw new IllegalArgumentException("Array size does not match arena size.");
+
+		sweep((parameters, gradients, start, end, offset) -> System.arraycopy(flat, offset, parameters, start, end - start));
+	}
+
+	/**
+	 * Segments loop over part of a single tensor.
+	 */
+	public interface Segment {
+		/**
+		 * Loops over part of a tensor.
+		 *
+		 * @param parameters the parameters of the tensor
+		 * @param gradients  the gradients of the tensor, or null
+		 * @param start      the first index in the tensor, inclusive
+		 * @param end        the last index in the tensor, exclusive
+		 * @param offset     the index of the start in the flat index space
+		 */
+		void apply(float[] parameters, float[] gradients, int start, int end, int offset);
+	}
+}
@@ -0,0 +1,156 @@
+package neuralnet;
+
+/**
+ * Half precision formats, which store values in 16 bits instead of 32. Activations kept for back propagation take half the memory, and
+ * deltas passed between layers are rounded to the format, while weights and their updaters stay in single precision.
+ */
+public enum Precision {
+	/**
+	 * IEEE half precision, with 5 exponent bits and 10 mantissa bits. Magnitudes above 65504 overflow to infinity, so losses are scaled
+	 * to keep small gradients from flushing to zero without overflowing large ones.
+	 */
+	FLOAT16 {
+		public short encode(float value) {
+			int bits = Float.floatToRawIntBits(value);
+			int sign = (bits >>> 16) & 0x8000;
+			int exponent = (bits >>> 23) & 0xff;
+			int mantissa = bits & 0x7fffff;
+
+			// infinity stays infinity, and NaN stays NaN
+			if (exponent == 0xff)
+				return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+
+			exponent += 15 - 127;
+
+			if (exponent >= 0x1f)
+				return (short) (sign | 0x7c00);
+
+			if (exponent <= 0) {
+				// too small to be represented, even as a subnormal
+				if (exponent < -10)
+					return (short) sign;
+
+				// subnormals shift the implicit leading bit into the mantissa
+				int shift = 14 - exponent;
+				return (short) (sign | roundMantissa(mantissa | 0x800000, shift));
+			}
+
+			// rounding may carry into the exponent, which also rounds the largest values up to infinity
+			return (short) (sign | ((exponent << 10) + roundMantissa(mantissa, 13)));
+		}
+
+		public float decode(short value) {
+			int sign = (value & 0x8000) << 16;
+			int exponent = (value >>> 10) & 0x1f;
+			int mantissa = value & 0x3ff;
+
+			if (exponent == 0x1f)
+				return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+
+			if (exponent == 0) {
+				float subnormal = mantissa * 0x1p-24f;
+				return sign == 0 ? subnormal : -subnormal;
+			}
+
+			return Float.intBitsToFloat(sign | ((exponent + 127 - 15) << 23) | (mantissa << 13));
+		}
+	},
+
+	/**
+	 * Brain floating point, which is the upper half of single precision. It has the same range as single precision, with 7 mantissa
+	 * bits, so it rarely overflows.
+	 */
+	BFLOAT16 {
+		public short encode(float value) {
+			int bits = Float.floatToRawIntBits(value);
+
+			// keeping NaN from rounding into infinity
+			if (Float.isNaN(value))
+				return (short) ((bits >>> 16) | 0x40);
+
+			return (short) (bits + 0x7fff + ((bits >>> 16) & 1) >>> 16);
+		}
+
+		public float decode(short value) {
+			return Float.intBitsToFloat(value << 16);
+		}
+	};
+
+	/**
+	 * Shifts a mantissa right, rounding to the nearest value with ties to even.
+	 *
+	 * @param mantissa the mantissa
+	 * @param shift    the amount of bits to drop
+	 * @return the rounded mantissa
+	 */
+	private static int roundMantissa(int mantissa, int shift) {
+		int value = mantissa >>> shift;
+		int rest = mantissa & ((1 << shift) - 1);
+		int half = 1 << (shift - 1);
+
+		if (rest > half || (rest == half && (value & 1) != 0))
+			value++;
+
+		return value;
+	}
+
+	/**
+	 * Converts a single precision value to the format, rounding to the nearest value.
+	 *
+	 * @param value the value
+	 * @return the 16 bits of the value
+	 */
+	public abstract short encode(float value);
+
+	/**
+	 * Converts a value of the format to single precision, which is exact.
+	 *
+	 * @param value the 16 bits of the value
+	 * @return the value
+	 */
+	public abstract float decode(short value);
+
+	/**
+	 * Converts an array to the format.
+	 *
+	 * @param values the values
+	 * @return the encoded values
+	 */
+	public short[] encode(float[] values) {
+		short[] encoded = new short[values.length];
+		Sweep.run(values.length, (start, end) -> {
+			for (int i = start; i < end; i++)
+				encoded[i] = encode(values[i]);
+		});
+
+		return encoded;
+	}
+
+	/**
+	 * Converts an array of the format to single precision.
+	 *
+	 * @param values the encoded values
+	 * @return the values
+	 */
+	public float[] decode(short[] values) {
+		float[] decoded = new float[values.length];
+		Sweep.run(values.length, (start, end) -> {
+			for (int i = start; i < end; i++)
+				decoded[i] = decode(values[i]);
+		});
+
+		return decoded;
+	}
+
+	/**
+	 * Rounds an array in place to the values the format can represent, as if it was stored in the format.
+	 *
+	 * @param values the values
+	 */
+	public void round(float[] values) {
+		Sweep.run(values.length, (start, end) -> {
+			for (int i = start; i < end; i++)
+				values[i] = decode(encode(values[i]));
+		});
+	}
+}
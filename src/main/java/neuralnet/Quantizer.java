@@ -0,0 +1,170 @@
+package neuralnet;
+
+import neuralnet.data.Batch;
+import neuralnet.data.Dataset;
+import neuralnet.data.PrefetchIterator;
+import neuralnet.layers.Convolutional;
+import neuralnet.layers.Dense;
+import neuralnet.layers.Layer;
+
+/**
+ * Quantizers convert trained models to int8 for inference. The range of inputs to each layer is calibrated on sample data, then Dense
+ * and convolutional layers are replaced with quantized layers, which take a quarter of the memory and multiply with int arithmetic on
+ * the CPU. Other layers are shared with the original model.
+ */
+public class Quantizer {
+	/**
+	 * Quantizes a model.
+	 *
+	 * @param model       the trained model
+	 * @param calibration the sample data that input ranges are calibrated on
+	 * @param batchSize   the batch size of calibration
+	 * @return the quantized model
+	 */
+	public static Model quantize(Model model, Dataset calibration, int batchSize) {
+		int amount = model.getLayerAmount();
+		float[] ranges = new float[amount];
+
+		model.setMode(Layer.Mode.EVAL);
+
+		try (PrefetchIterator batches = calibration.batches(batchSize)) {
+			while (batches.hasNext()) {
+				Batch batch = batches.next();
+
+				float[] x = batch.getInputs();
+				for (int i = 0; i < amount; i++) {
+					for (float value : x)
+						ranges[i] = Math.max(ranges[i], Math.abs(value));
+
+					x = model.getLayer(i).forward(x, batch.getSize());
+				}
+			}
+		}
+
+		Layer[] layers = new Layer[amount];
+		for (int i = 0; i < amount; i++) {
+			Layer layer = model.getLayer(i);
+
+			if (layer instanceof Dense)
+				layers[i] = ((Dense) layer).quantize(ranges[i]);
+			else if (layer instanceof Convolutional)
+				layers[i] = ((Convolutional) layer).quantize(ranges[i]);
+			else
+				layers[i] = layer;
+		}
+
+		return new Model(model, layers);
+	}
+
+	/**
+	 * Compares the outputs of a model and its quantized model.
+	 *
+	 * @param model     the model
+	 * @param quantized the quantized model
+	 * @param dataset   the dataset to evaluate on
+	 * @param batchSize the batch size
+	 * @return the report
+	 */
+	public static Report compare(Model model, Model quantized, Dataset dataset, int batchSize) {
+		model.setMode(Layer.Mode.EVAL);
+		quantized.setMode(Layer.Mode.EVAL);
+
+		int outputSize = 1;
+		for (int dimension : model.getOutputDimensions())
+			outputSize *= dimension;
+
+		double cost = 0, quantizedCost = 0;
+		float maxError = 0;
+		int agreements = 0, samples = 0;
+
+		try (PrefetchIterator batches = dataset.batches(batchSize)) {
+			while (batches.hasNext()) {
+				Batch batch = batches.next();
+				int s = batch.getSize();
+
+				float[] output = model.forward(batch.getInputs(), s);
+				float[] quantizedOutput = quantized.forward(batch.getInputs(), s);
+
+				cost += model.getCost().cost(output, batch.getTargets());
+				quantizedCost += quantized.getCost().cost(quantizedOutput, batch.getTargets());
+
+				for (int i = 0; i < output.length; i++)
+					maxError = Math.max(maxError, Math.abs(output[i] - quantizedOutput[i]));
+
+				for (int b = 0; b < s; b++) {
+					if (argmax(output, b * outputSize, outputSize) == argmax(quantizedOutput, b * outputSize, outputSize))
+						agreements++;
+				}
+
+				samples += s;
+			}
+		}
+
+		return new Report((float) (cost / samples), (float) (quantizedCost / samples), maxError, (float) agreements / samples);
+	}
+
+	private static int argmax(float[] values, int offset, int length) {
+		int index = 0;
+		for (int i = 1; i < length; i++) {
+			if (values[offset + i] > values[offset + index])
+				index = i;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Reports how much accuracy was lost by quantization.
+	 */
+	public static class Report {
+		private final float cost, quantizedCost, maxError, agreement;
+
+		private Report(float cost, float quantizedCost, float maxError, float agreement) {
+			this.cost = cost;
+			this.quantizedCost = quantizedCost;
+			this.maxError = maxError;
+			this.agreement = agreement;
+		}
+
+		/**
+		 * Gets the average cost of the original model.
+		 *
+		 * @return the cost
+		 */
+		public float getCost() {
+			return cost;
+		}
+
+		/**
+		 * Gets the average cost of the quantized model.
+		 *
+		 * @return the quantized cost
+		 */
+		public float getQuantizedCost() {
+			return quantizedCost;
+		}
+
+		/**
+		 * Gets the largest difference between an output of the original model and of the quantized model.
+		 *
+		 * @return the max error
+		 */
+		public float getMaxError() {
+			return maxError;
+		}
+
+		/**
+		 * Gets the fraction of samples where both models have the same largest output, which is the predicted class of classifiers.
+		 *
+		 * @return the agreement
+		 */
+		public float getAgreement() {
+			return agreement;
+		}
+
+		public String toString() {
+			return String.format("cost: %f\tquantized cost: %f\tdelta: %f\tmax error: %f\tagreement: %.2f%%", cost, quantizedCost,
+				quantizedCost - cost, maxError, agreement * 100);
+		}
+	}
+}
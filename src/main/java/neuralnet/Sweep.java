@@ -0,0 +1,65 @@
+package neuralnet;
+
+import java.util.stream.IntStream;
+
+/**
+ * Sweeps split element-wise loops over large arrays into evenly sized chunks that run in parallel. Arrays smaller than a chunk run on
+ * the calling thread, as the cost of scheduling would outweigh the work.
+ */
+public class Sweep {
+	/**
+	 * The amount of elements in each chunk.
+	 */
+	public static final int CHUNK = 16384;
+
+	/**
+	 * Sweeps over a range of indices.
+	 *
+	 * @param size  the amount of indices
+	 * @param chunk the loop over a chunk of indices
+	 */
+	public static void run(int size, Chunk chunk) {
+		if (size <= CHUNK) {
+			chunk.apply(0, size);
+			return;
+		}
+
+		IntStream.range(0, (size + CHUNK - 1) / CHUNK).parallel().forEach(i -> chunk.apply(i * CHUNK, Math.min(size, (i + 1) * CHUNK)));
+	}
+
+	/**
+	 * Sums values over a range of indices, such as norms. Each chunk sums into its own array, which are added together at the end, so
+	 * chunks do not contend on shared sums.
+	 *
+	 * @param size   the amount of indices
+	 * @param amount the amount of sums
+	 * @param sums   the loop over a chunk of indices, adding to the sums
+	 * @return the sums
+	 */
+	public static double[] sum(int size, int amount, Sums sums) {
+		double[][] partial = new double[Math.max(1, (size + CHUNK - 1) / CHUNK)][amount];
+		run(size, (start, end) -> sums.apply(start, end, partial[start / CHUNK]));
+
+		double[] total = new double[amount];
+		for (double[] values : partial) {
+			for (int i = 0; i < amount; i++)
+				total[i] += values[i];
+		}
+
+		return total;
+	}
+
+	/**
+	 * Chunks loop over the indices from start, inclusive, to end, exclusive.
+	 */
+	public interface Chunk {
+		void apply(int start, int end);
+	}
+
+	/**
+	 * Sums loop over the indices from start, inclusive, to end, exclusive, adding to the sums of the chunk.
+	 */
+	public interface Sums {
+		void apply(int start, int end, double[] sums);
+	}
+}
@@ -0,0 +1,21 @@
+package neuralnet;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Tensor inputs read the structure of a model whose tensors are stored apart from it, such as in model files or compressed models.
+ */
+abstract class TensorInput extends ModelInputStream {
+	TensorInput(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * Reads the next tensor of the model.
+	 *
+	 * @param tensor the tensor to read into
+	 * @throws IOException if there is an error reading the tensor
+	 */
+	abstract void readTensor(float[] tensor) throws IOException;
+}
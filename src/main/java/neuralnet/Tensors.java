@@ -0,0 +1,69 @@
+package neuralnet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Tensors are the parameter arrays of layers and updaters. Layers export their tensors through this class, so that model files can
+ * either interleave them with the rest of the model, or store them in separate blocks that are mapped into memory.
+ * <p>
+ * Several tensors of the same amount of rows are written row by row, so that the first row of each tensor is followed by the second
+ * row of each tensor, and so on. Tensors in model files are stored whole, with the rows only affecting exported streams.
+ */
+public final class Tensors {
+	private Tensors() {
+	}
+
+	/**
+	 * Writes tensors to an output stream.
+	 *
+	 * @param dos     the output stream
+	 * @param rows    the amount of rows of each tensor
+	 * @param tensors the tensors
+	 * @throws IOException if there is an error writing to the stream
+	 */
+	public static void write(DataOutputStream dos, int rows, float[]... tensors) throws IOException {
+		if (dos instanceof ModelFile.TableOutput) {
+			for (float[] tensor : tensors)
+				((ModelFile.TableOutput) dos).writeTensor(tensor);
+
+			return;
+		}
+
+		for (int i = 0; i < rows; i++) {
+			for (float[] tensor : tensors) {
+				int length = tensor.length / rows;
+
+				for (int j = i * length; j < (i + 1) * length; j++)
+					dos.writeFloat(tensor[j]);
+			}
+		}
+	}
+
+	/**
+	 * Reads tensors from an input stream, in the layout they were written with.
+	 *
+	 * @param dis     the input stream
+	 * @param rows    the amount of rows of each tensor
+	 * @param tensors the tensors to read into
+	 * @throws IOException if there is an error reading from the stream
+	 */
+	public static void read(DataInputStream dis, int rows, float[]... tensors) throws IOException {
+		if (dis instanceof TensorInput) {
+			for (float[] tensor : tensors)
+				((TensorInput) dis).readTensor(tensor);
+
+			return;
+		}
+
+		for (int i = 0; i < rows; i++) {
+			for (float[] tensor : tensors) {
+				int length = tensor.length / rows;
+
+				for (int j = i * length; j < (i + 1) * length; j++)
+					tensor[j] = dis.readFloat();
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package neuralnet.augmentations;
+
+import java.util.SplittableRandom;
+
+/**
+ * Augmentations randomly transform images during training. Images are in CHW layout, as expected by convolutional layers, with
+ * dimensions of depth, height and width.
+ */
+public interface Augmentation {
+	/**
+	 * Gets the dimensions of the augmented image.
+	 *
+	 * @param dimensions the dimensions of the image
+	 * @return the dimensions of the augmented image
+	 */
+	int[] getOutputDimensions(int[] dimensions);
+
+	/**
+	 * Augments an image. Arrays may be larger than the images, so that buffers can be reused.
+	 *
+	 * @param input      the image
+	 * @param dimensions the dimensions of the image
+	 * @param output     the augmented image
+	 * @param random     the random number generator
+	 */
+	void apply(float[] input, int[] dimensions, float[] output, SplittableRandom random);
+}
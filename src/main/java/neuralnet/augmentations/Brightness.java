@@ -0,0 +1,34 @@
+package neuralnet.augmentations;
+
+import java.util.SplittableRandom;
+
+/**
+ * Brightness jitter adds a random offset to every value of the image.
+ */
+public class Brightness implements Augmentation {
+	private final float delta;
+
+	/**
+	 * Creates brightness jitter.
+	 *
+	 * @param delta the maximum offset, offsets are uniform in [-delta, delta]
+	 */
+	public Brightness(float delta) {
+		if (delta < 0)
+			throw new IllegalArgumentException("Delta must be >= 0.");
+
+		this.delta = delta;
+	}
+
+	public int[] getOutputDimensions(int[] dimensions) {
+		return dimensions;
+	}
+
+	public void apply(float[] input, int[] dimensions, float[] output, SplittableRandom random) {
+		int size = dimensions[0] * dimensions[1] * dimensions[2];
+		float offset = (float) ((random.nextDouble() * 2 - 1) * delta);
+
+		for (int i = 0; i < size; i++)
+			output[i] = input[i] + offset;
+	}
+}
@@ -0,0 +1,62 @@
+package neuralnet.augmentations;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Random crops cut a window of a fixed size at a random position of the image, which is padded with zeros on each side.
+ */
+public class RandomCrop implements Augmentation {
+	private final int height, width, pad;
+
+	/**
+	 * Creates a random crop.
+	 *
+	 * @param height the height of the crop
+	 * @param width  the width of the crop
+	 * @param pad    the amount of zeros padded on each side of the image
+	 */
+	public RandomCrop(int height, int width, int pad) {
+		if (height <= 0 || width <= 0)
+			throw new IllegalArgumentException("Crop dimensions must be > 0.");
+		if (pad < 0)
+			throw new IllegalArgumentException("Pad must be >= 0.");
+
+		this.height = height;
+		this.width = width;
+		this.pad = pad;
+	}
+
+	public int[] getOutputDimensions(int[] dimensions) {
+		if (height > dimensions[1] + 2 * pad || width > dimensions[2] + 2 * pad)
+			throw new IllegalArgumentException("Crop is larger than the padded image.");
+
+		return new int[]{dimensions[0], height, width};
+	}
+
+	public void apply(float[] input, int[] dimensions, float[] output, SplittableRandom random) {
+		int depth = dimensions[0], inputHeight = dimensions[1], inputWidth = dimensions[2];
+
+		// position of the crop relative to the unpadded image
+		int y = random.nextInt(inputHeight + 2 * pad - height + 1) - pad;
+		int x = random.nextInt(inputWidth + 2 * pad - width + 1) - pad;
+
+		int start = Math.max(0, -x);
+		int end = Math.min(width, inputWidth - x);
+
+		Arrays.fill(output, 0, depth * height * width, 0);
+
+		// with a pad larger than the crop, the crop can lie entirely in the padding
+		if (end <= start)
+			return;
+
+		for (int c = 0; c < depth; c++) {
+			for (int i = Math.max(0, -y); i < Math.min(height, inputHeight - y); i++) {
+				int source = (c * inputHeight + y + i) * inputWidth + x;
+				int destination = (c * height + i) * width;
+
+				System.arraycopy(input, source + start, output, destination + start, end - start);
+			}
+		}
+	}
+}
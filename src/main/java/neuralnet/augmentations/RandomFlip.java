@@ -0,0 +1,27 @@
+package neuralnet.augmentations;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random flips mirror half of the images horizontally.
+ */
+public class RandomFlip implements Augmentation {
+	public int[] getOutputDimensions(int[] dimensions) {
+		return dimensions;
+	}
+
+	public void apply(float[] input, int[] dimensions, float[] output, SplittableRandom random) {
+		int size = dimensions[0] * dimensions[1] * dimensions[2];
+
+		if (random.nextBoolean()) {
+			System.arraycopy(input, 0, output, 0, size);
+			return;
+		}
+
+		int width = dimensions[2];
+		for (int row = 0; row < size; row += width) {
+			for (int i = 0; i < width; i++)
+				output[row + i] = input[row + width - 1 - i];
+		}
+	}
+}
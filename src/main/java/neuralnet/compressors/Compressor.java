@@ -0,0 +1,28 @@
+package neuralnet.compressors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Compressors encode gradients before they are exchanged between workers, reducing the amount of bytes sent each step.
+ */
+public interface Compressor {
+	/**
+	 * Encodes a gradient to an output stream.
+	 *
+	 * @param gradient the gradient
+	 * @param dos      the output stream
+	 * @throws IOException if there is an error writing to the stream
+	 */
+	void compress(float[] gradient, DataOutputStream dos) throws IOException;
+
+	/**
+	 * Decodes a gradient from an input stream, adding it to the gradient. Adding allows gradients from several workers to be summed.
+	 *
+	 * @param dis      the input stream
+	 * @param gradient the gradient
+	 * @throws IOException if there is an error reading from the stream
+	 */
+	void decompress(DataInputStream dis, float[] gradient) throws IOException;
+}
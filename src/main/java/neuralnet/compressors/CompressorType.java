@@ -0,0 +1,26 @@
+package neuralnet.compressors;
+
+/**
+ * The CompressorType is used for repeatedly creating instances of a compressor, one for each parameter gradient.
+ */
+public enum CompressorType {
+	TOP_K, QUANTIZATION;
+
+	/**
+	 * Creates an instance, given the current CompressorType.
+	 *
+	 * @param size    the size of the gradient
+	 * @param density the fraction of values sent by top-k sparsification, ignored by quantization
+	 * @return an instance of the current CompressorType
+	 */
+	public Compressor create(int size, float density) {
+		switch (this) {
+			case TOP_K:
+				return new TopK(size, density);
+			case QUANTIZATION:
+				return new Quantization(size);
+			default:
+				return null;
+		}
+	}
+}
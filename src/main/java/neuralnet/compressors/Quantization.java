@@ -0,0 +1,65 @@
+package neuralnet.compressors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Quantization sends each value of a gradient as a single byte, scaled by the largest magnitude of the gradient. Values are rounded
+ * stochastically, so that the decoded gradient is unbiased.
+ */
+public class Quantization implements Compressor {
+	private static final int LEVELS = 127;
+
+	private int size;
+	private byte[] quantized;
+
+	Quantization(int size) {
+		if (size <= 0)
+			throw new IllegalArgumentException("Size must be > 0.");
+
+		this.size = size;
+
+		quantized = new byte[size];
+	}
+
+	public void compress(float[] gradient, DataOutputStream dos) throws IOException {
+		if (gradient.length != size)
+			throw new IllegalArgumentException("Invalid gradient length.");
+
+		float max = 0;
+		for (float value : gradient)
+			max = Math.max(max, Math.abs(value));
+
+		float scale = max / LEVELS;
+
+		dos.writeFloat(scale);
+		if (scale == 0)
+			return;
+
+		IntStream.range(0, size).parallel().forEach(i -> {
+			// rounding up with a probability equal to the remainder keeps the expected value the same
+			float value = gradient[i] / scale;
+			float floor = (float) Math.floor(value);
+
+			if (ThreadLocalRandom.current().nextFloat() < value - floor)
+				floor++;
+
+			quantized[i] = (byte) Math.max(-LEVELS, Math.min(LEVELS, floor));
+		});
+
+		dos.write(quantized);
+	}
+
+	public void decompress(DataInputStream dis, float[] gradient) throws IOException {
+		float scale = dis.readFloat();
+		if (scale == 0)
+			return;
+
+		dis.readFully(quantized);
+
+		IntStream.range(0, size).parallel().forEach(i -> gradient[i] += quantized[i] * scale);
+	}
+}
@@ -0,0 +1,109 @@
+package neuralnet.compressors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+/**
+ * Top-k sparsification only sends the largest values of a gradient, as index and value pairs. Values which are not sent are kept as a
+ * residual and added to the next gradient (error feedback), so that small gradients are delayed instead of lost.
+ */
+public class TopK implements Compressor {
+	private int size, k;
+	private float[] residual;
+	private float[] magnitudes;
+
+	TopK(int size, float density) {
+		if (size <= 0)
+			throw new IllegalArgumentException("Size must be > 0.");
+		if (density <= 0 || density > 1)
+			throw new IllegalArgumentException("Density must be > 0 and <= 1.");
+
+		this.size = size;
+		this.k = Math.max(1, (int) (size * density));
+
+		residual = new float[size];
+		magnitudes = new float[size];
+	}
+
+	/**
+	 * Finds the k-th largest value, by partially sorting the values in place.
+	 *
+	 * @param values the values
+	 * @param k      the rank
+	 * @return the k-th largest value
+	 */
+	static float select(float[] values, int k) {
+		int left = 0, right = values.length - 1;
+		int target = values.length - k;
+
+		while (left < right) {
+			float pivot = values[(left + right) >>> 1];
+			int i = left, j = right;
+
+			while (i <= j) {
+				while (values[i] < pivot)
+					i++;
+				while (values[j] > pivot)
+					j--;
+
+				if (i <= j) {
+					float temp = values[i];
+					values[i++] = values[j];
+					values[j--] = temp;
+				}
+			}
+
+			if (target <= j)
+				right = j;
+			else if (target >= i)
+				left = i;
+			else
+				break;
+		}
+
+		return values[target];
+	}
+
+	public void compress(float[] gradient, DataOutputStream dos) throws IOException {
+		if (gradient.length != size)
+			throw new IllegalArgumentException("Invalid gradient length.");
+
+		// error feedback, values that were not sent previously are added to the gradient
+		IntStream.range(0, size).parallel().forEach(i -> {
+			residual[i] += gradient[i];
+			magnitudes[i] = Math.abs(residual[i]);
+		});
+
+		float threshold = select(magnitudes, k);
+
+		int count = 0;
+		for (int i = 0; i < size && count < k; i++) {
+			if (residual[i] != 0 && Math.abs(residual[i]) >= threshold)
+				count++;
+		}
+
+		dos.writeInt(count);
+
+		for (int i = 0; i < size && count > 0; i++) {
+			if (residual[i] != 0 && Math.abs(residual[i]) >= threshold) {
+				dos.writeInt(i);
+				dos.writeFloat(residual[i]);
+
+				// sent values are removed from the residual
+				residual[i] = 0;
+				count--;
+			}
+		}
+	}
+
+	public void decompress(DataInputStream dis, float[] gradient) throws IOException {
+		int count = dis.readInt();
+
+		for (int i = 0; i < count; i++) {
+			int index = dis.readInt();
+			gradient[index] += dis.readFloat();
+		}
+	}
+}
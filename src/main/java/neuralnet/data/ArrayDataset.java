@@ -0,0 +1,128 @@
+package neuralnet.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Array datasets hold all samples in memory. Samples are shuffled at the start of each epoch, which prevents the neural network from
+ * learning the order of the data.
+ */
+public class ArrayDataset implements RandomAccessDataset {
+	private final List<float[][]> samples;
+	private final boolean shuffle;
+	private long seed = new Random().nextLong();
+
+	/**
+	 * Creates a dataset from inputs and targets with matching indices. Unlike maps, duplicate inputs are kept.
+	 *
+	 * @param inputs  the inputs
+	 * @param targets the targets
+	 * @param shuffle whether to shuffle each epoch
+	 */
+	public ArrayDataset(float[][] inputs, float[][] targets, boolean shuffle) {
+		this(inputs, targets, shuffle, new Random().nextLong());
+	}
+
+	/**
+	 * Creates a dataset from inputs and targets with matching indices, shuffled with a seed.
+	 *
+	 * @param inputs  the inputs
+	 * @param targets the targets
+	 * @param shuffle whether to shuffle each epoch
+	 * @param seed    the seed
+	 */
+	public ArrayDataset(float[][] inputs, float[][] targets, boolean shuffle, long seed) {
+		Objects.requireNonNull(inputs);
+		Objects.requireNonNull(targets);
+		if (inputs.length != targets.length)
+			throw new IllegalArgumentException("Invalid array lengths.");
+
+		this.shuffle = shuffle;
+		this.seed = seed;
+
+		samples = new ArrayList<>(inputs.length);
+		for (int i = 0; i < inputs.length; i++)
+			samples.add(new float[][]{inputs[i], targets[i]});
+	}
+
+	/**
+	 * Creates a shuffled dataset from a map of inputs to targets.
+	 *
+	 * @param data the data
+	 */
+	public ArrayDataset(Map<float[], float[]> data) {
+		Objects.requireNonNull(data);
+
+		shuffle = true;
+
+		samples = new ArrayList<>(data.size());
+		for (Map.Entry<float[], float[]> entry : data.entrySet())
+			samples.add(new float[][]{entry.getKey(), entry.getValue()});
+	}
+
+	/**
+	 * Creates the generator of an epoch. Each epoch is seeded by the previous one, so that the seed is the whole state of shuffling.
+	 *
+	 * @return the generator
+	 */
+	private Random nextRandom() {
+		Random random = new Random(seed);
+		seed = random.nextLong();
+
+		return random;
+	}
+
+	public Iterator<float[][]> iterator() {
+		if (shuffle)
+			Collections.shuffle(samples, nextRandom());
+
+		return Collections.unmodifiableList(samples).iterator();
+	}
+
+	public int size() {
+		return samples.size();
+	}
+
+	public int getInputSize() {
+		return samples.isEmpty() ? 0 : samples.get(0)[0].length;
+	}
+
+	public int getTargetSize() {
+		return samples.isEmpty() ? 0 : samples.get(0)[1].length;
+	}
+
+	public int[] order() {
+		int[] order = new int[samples.size()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+
+		if (shuffle) {
+			Random random = nextRandom();
+			for (int i = order.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int temp = order[i];
+				order[i] = order[j];
+				order[j] = temp;
+			}
+		}
+
+		return order;
+	}
+
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeLong(seed);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		seed = dis.readLong();
+	}
+
+	public void read(int index, float[] inputs, int inputOffset, float[] targets, int targetOffset) {
+		float[][] sample = samples.get(index);
+
+		System.arraycopy(sample[0], 0, inputs, inputOffset, sample[0].length);
+		System.arraycopy(sample[1], 0, targets, targetOffset, sample[1].length);
+	}
+}
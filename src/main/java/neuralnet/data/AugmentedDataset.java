@@ -0,0 +1,229 @@
+package neuralnet.data;
+
+import neuralnet.augmentations.Augmentation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+
+/**
+ * Augmented datasets randomly transform the images of a dataset. Batches are augmented by a pool of workers, each with its own random
+ * number generator and buffers, and are written into reused batch buffers that are handed to training through a bounded queue, so that
+ * augmentation runs alongside training instead of in front of it. The dataset must be closed once it is no longer used, so that its
+ * workers stop.
+ */
+public class AugmentedDataset implements Dataset, AutoCloseable {
+	private final Dataset dataset;
+	private final Augmentation[] augmentations;
+
+	// dimensions of the images before each augmentation, and after the last one
+	private final int[][] dimensions;
+	private final int inputSize, outputSize;
+
+	private final ExecutorService workers;
+	private final float[][][] buffers;
+	private long seed;
+
+	/**
+	 * Creates an augmented dataset.
+	 *
+	 * @param dataset       the dataset of images
+	 * @param dimensions    the dimensions of the images, depth, height and width
+	 * @param workers       the amount of workers
+	 * @param seed          the seed
+	 * @param augmentations the augmentations, applied in order
+	 */
+	public AugmentedDataset(Dataset dataset, int[] dimensions, int workers, long seed, Augmentation... augmentations) {
+		Objects.requireNonNull(dataset);
+		if (dimensions.length != 3)
+			throw new IllegalArgumentException("Dimensions must be depth, height and width.");
+		if (workers <= 0)
+			throw new IllegalArgumentException("Worker amount must be > 0.");
+
+		this.dataset = dataset;
+		this.augmentations = augmentations.clone();
+
+		this.dimensions = new int[augmentations.length + 1][];
+		this.dimensions[0] = dimensions.clone();
+
+		int maxSize = size(dimensions);
+		for (int i = 0; i < augmentations.length; i++) {
+			this.dimensions[i + 1] = augmentations[i].getOutputDimensions(this.dimensions[i]);
+			maxSize = Math.max(maxSize, size(this.dimensions[i + 1]));
+		}
+
+		inputSize = size(dimensions);
+		outputSize = size(this.dimensions[augmentations.length]);
+
+		this.workers = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "augment");
+			thread.setDaemon(true);
+
+			return thread;
+		});
+
+		// each worker has its own pair of buffers, and its own generator each epoch, so workers never share state
+		buffers = new float[workers][2][maxSize];
+		this.seed = seed;
+	}
+
+	/**
+	 * Creates the generator of an epoch. Each epoch is seeded by the previous one, so that the seed is the whole state of augmentation.
+	 *
+	 * @return the generator
+	 */
+	private SplittableRandom nextRandom() {
+		SplittableRandom random = new SplittableRandom(seed);
+		seed = random.nextLong();
+
+		return random;
+	}
+
+	private static int size(int[] dimensions) {
+		return dimensions[0] * dimensions[1] * dimensions[2];
+	}
+
+	/**
+	 * Gets the dimensions of the augmented images.
+	 *
+	 * @return the dimensions
+	 */
+	public int[] getOutputDimensions() {
+		return dimensions[augmentations.length].clone();
+	}
+
+	private void augment(float[] inputs, int inputOffset, float[] outputs, int outputOffset, SplittableRandom random, float[][] buffer) {
+		float[] current = buffer[0], next = buffer[1];
+		System.arraycopy(inputs, inputOffset, current, 0, inputSize);
+
+		for (int i = 0; i < augmentations.length; i++) {
+			augmentations[i].apply(current, dimensions[i], next, random);
+
+			float[] temp = current;
+			current = next;
+			next = temp;
+		}
+
+		System.arraycopy(current, 0, outputs, outputOffset, outputSize);
+	}
+
+	public Iterator<float[][]> iterator() {
+		Iterator<float[][]> samples = dataset.iterator();
+		SplittableRandom random = nextRandom();
+		float[][] buffer = new float[2][buffers[0][0].length];
+
+		return new Iterator<float[][]>() {
+			public boolean hasNext() {
+				return samples.hasNext();
+			}
+
+			public float[][] next() {
+				float[][] sample = samples.next();
+
+				float[] output = new float[outputSize];
+				augment(sample[0], 0, output, 0, random, buffer);
+
+				return new float[][]{output, sample[1]};
+			}
+		};
+	}
+
+	public PrefetchIterator batches(int batchSize) {
+		if (workers.isShutdown())
+			throw new IllegalStateException("Dataset is closed.");
+
+		return new PrefetchIterator(new Source(batchSize), 2);
+	}
+
+	public int size() {
+		return dataset.size();
+	}
+
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeLong(seed);
+		dataset.exportState(dos);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		seed = dis.readLong();
+		dataset.importState(dis);
+	}
+
+	/**
+	 * Stops the workers once they finish the batch they are augmenting. Iterating samples one at a time still works afterwards, as it
+	 * doesn't use the workers.
+	 */
+	public void close() {
+		workers.shutdown();
+	}
+
+	/**
+	 * Sources assemble batches of images, then split the batch between the workers to augment it.
+	 */
+	private class Source implements BatchSource {
+		private final BatchIterator batches;
+		private final SplittableRandom[] randoms;
+		private Batch images;
+
+		Source(int batchSize) {
+			batches = new BatchIterator(dataset, batchSize);
+
+			SplittableRandom random = nextRandom();
+			randoms = new SplittableRandom[buffers.length];
+			for (int i = 0; i < randoms.length; i++)
+				randoms[i] = random.split();
+		}
+
+		public boolean hasNext() {
+			return batches.hasNext();
+		}
+
+		public Batch next(Batch reuse) {
+			images = batches.next(images);
+
+			int size = images.getSize();
+			float[] inputs = images.getInputs();
+			float[] targets = images.getTargets();
+
+			if (inputs.length != size * inputSize)
+				throw new IllegalArgumentException("Input size does not match dimensions.");
+
+			Batch batch = reuse;
+			if (batch == null || batch.getInputs().length != size * outputSize || batch.getTargets().length != targets.length)
+				batch = new Batch(new float[size * outputSize], new float[targets.length], size);
+
+			float[] outputs = batch.getInputs();
+			System.arraycopy(targets, 0, batch.getTargets(), 0, targets.length);
+
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i = 0; i < randoms.length; i++) {
+				int worker = i;
+
+				tasks.add(() -> {
+					for (int s = worker; s < size; s += randoms.length)
+						augment(inputs, s * inputSize, outputs, s * outputSize, randoms[worker], buffers[worker]);
+
+					return null;
+				});
+			}
+
+			try {
+				for (Future<Void> future : workers.invokeAll(tasks))
+					future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+
+			return batch;
+		}
+	}
+}
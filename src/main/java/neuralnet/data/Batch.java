@@ -0,0 +1,32 @@
+package neuralnet.data;
+
+/**
+ * Batches hold the inputs and targets of several samples, in contiguous arrays.
+ */
+public class Batch {
+	private final float[] inputs, targets;
+	private final int size;
+
+	Batch(float[] inputs, float[] targets, int size) {
+		this.inputs = inputs;
+		this.targets = targets;
+		this.size = size;
+	}
+
+	public float[] getInputs() {
+		return inputs;
+	}
+
+	public float[] getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Gets the amount of samples in the batch. The last batch of an epoch may be smaller than the batch size.
+	 *
+	 * @return the batch size
+	 */
+	public int getSize() {
+		return size;
+	}
+}
@@ -0,0 +1,143 @@
+package neuralnet.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Batch iterators group the samples of an epoch into batches.
+ */
+public class BatchIterator implements Iterator<Batch>, BatchSource {
+	private final Iterator<float[][]> samples;
+	private final int batchSize;
+
+	// random access datasets are copied straight into batches, in the order of the epoch
+	private final RandomAccessDataset randomAccess;
+	private final int[] order;
+	private int position;
+
+	/**
+	 * Creates batches over an epoch of a dataset.
+	 *
+	 * @param dataset   the dataset
+	 * @param batchSize the batch size
+	 */
+	public BatchIterator(Dataset dataset, int batchSize) {
+		Objects.requireNonNull(dataset);
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be > 0.");
+
+		this.batchSize = batchSize;
+
+		if (dataset instanceof RandomAccessDataset) {
+			randomAccess = (RandomAccessDataset) dataset;
+			order = randomAccess.order();
+			samples = null;
+		} else {
+			randomAccess = null;
+			order = null;
+			samples = dataset.iterator();
+		}
+	}
+
+	/**
+	 * Creates batches over the rest of an epoch of a random access dataset, in a given order. This resumes an epoch that was
+	 * interrupted, without reading the samples that were already trained on.
+	 *
+	 * @param dataset   the dataset
+	 * @param batchSize the batch size
+	 * @param order     the indices of the samples, in the order of the epoch
+	 * @param position  the amount of samples of the epoch already trained on
+	 */
+	public BatchIterator(RandomAccessDataset dataset, int batchSize, int[] order, int position) {
+		Objects.requireNonNull(dataset);
+		Objects.requireNonNull(order);
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("Batch size must be > 0.");
+		if (position < 0 || position > order.length)
+			throw new IllegalArgumentException("Invalid position.");
+
+		this.batchSize = batchSize;
+		this.order = order;
+		this.position = position;
+
+		randomAccess = dataset;
+		samples = null;
+	}
+
+	public boolean hasNext() {
+		return randomAccess != null ? position < order.length : samples.hasNext();
+	}
+
+	public Batch next() {
+		return next(null);
+	}
+
+	/**
+	 * Assembles the next batch. The arrays of the previous batch are reused if they are the right size, so that full batches are not
+	 * reallocated every step.
+	 *
+	 * @param reuse the batch to reuse, or null
+	 * @return the batch
+	 */
+	public Batch next(Batch reuse) {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		if (randomAccess != null)
+			return nextRandomAccess(reuse);
+
+		float[][] sample = samples.next();
+		int inputSize = sample[0].length;
+		int targetSize = sample[1].length;
+
+		Batch batch = reuse;
+		if (batch == null || batch.getInputs().length != batchSize * inputSize || batch.getTargets().length != batchSize * targetSize)
+			batch = new Batch(new float[batchSize * inputSize], new float[batchSize * targetSize], batchSize);
+
+		float[] inputs = batch.getInputs();
+		float[] targets = batch.getTargets();
+
+		int s = 0;
+		while (true) {
+			System.arraycopy(sample[0], 0, inputs, s * inputSize, inputSize);
+			System.arraycopy(sample[1], 0, targets, s * targetSize, targetSize);
+			s++;
+
+			if (s == batchSize || !samples.hasNext())
+				break;
+
+			sample = samples.next();
+		}
+
+		// the last batch of an epoch is trimmed to the amount of samples left
+		if (s < batchSize) {
+			float[] trimmedInputs = new float[s * inputSize];
+			float[] trimmedTargets = new float[s * targetSize];
+			System.arraycopy(inputs, 0, trimmedInputs, 0, trimmedInputs.length);
+			System.arraycopy(targets, 0, trimmedTargets, 0, trimmedTargets.length);
+
+			return new Batch(trimmedInputs, trimmedTargets, s);
+		}
+
+		return batch;
+	}
+
+	private Batch nextRandomAccess(Batch reuse) {
+		int inputSize = randomAccess.getInputSize();
+		int targetSize = randomAccess.getTargetSize();
+		int size = Math.min(batchSize, order.length - position);
+
+		Batch batch = reuse;
+		if (batch == null || batch.getInputs().length != size * inputSize || batch.getTargets().length != size * targetSize)
+			batch = new Batch(new float[size * inputSize], new float[size * targetSize], size);
+
+		float[] inputs = batch.getInputs();
+		float[] targets = batch.getTargets();
+
+		for (int s = 0; s < size; s++)
+			randomAccess.read(order[position++], inputs, s * inputSize, targets, s * targetSize);
+
+		return batch;
+	}
+}
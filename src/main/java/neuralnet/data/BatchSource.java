@@ -0,0 +1,16 @@
+package neuralnet.data;
+
+/**
+ * Batch sources assemble batches into reused buffers, for prefetch iterators.
+ */
+interface BatchSource {
+	boolean hasNext();
+
+	/**
+	 * Assembles the next batch.
+	 *
+	 * @param reuse the batch to reuse, or null
+	 * @return the batch
+	 */
+	Batch next(Batch reuse);
+}
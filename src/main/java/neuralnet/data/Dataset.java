@@ -0,0 +1,55 @@
+package neuralnet.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Datasets provide samples for training. Each sample is an array of two elements: the input, and the target. Samples are streamed, so
+ * datasets do not need to fit in memory. Each call to <code>iterator</code> starts a new epoch.
+ */
+public interface Dataset extends Iterable<float[][]> {
+	/**
+	 * Starts a new epoch.
+	 *
+	 * @return an iterator over the samples of the epoch
+	 */
+	Iterator<float[][]> iterator();
+
+	/**
+	 * Gets the amount of samples in an epoch.
+	 *
+	 * @return the amount of samples, or -1 if it is unknown
+	 */
+	int size();
+
+	/**
+	 * Starts a new epoch, assembling batches in the background.
+	 *
+	 * @param batchSize the batch size
+	 * @return an iterator over the batches of the epoch
+	 */
+	default PrefetchIterator batches(int batchSize) {
+		return new PrefetchIterator(this, batchSize, 2);
+	}
+
+	/**
+	 * Exports the state of the dataset, such as the seed that the next epoch is shuffled with, for training checkpoints. Importing the
+	 * state makes the next epoch the same as the epoch that followed the export.
+	 *
+	 * @param dos the output stream
+	 * @throws IOException if there is an error writing to the file
+	 */
+	default void exportState(DataOutputStream dos) throws IOException {
+	}
+
+	/**
+	 * Imports the state of the dataset when training is resumed.
+	 *
+	 * @param dis the input stream
+	 * @throws IOException if there is an error reading from the file
+	 */
+	default void importState(DataInputStream dis) throws IOException {
+	}
+}
@@ -0,0 +1,96 @@
+package neuralnet.data;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * File datasets stream samples from a file, one record at a time. Each record is the input followed by the target, written as floats
+ * with <code>DataOutputStream.writeFloat</code>.
+ */
+public class FileDataset implements Dataset {
+	private final String file;
+	private final int inputSize, targetSize;
+	private final int size;
+
+	/**
+	 * Opens a dataset file.
+	 *
+	 * @param file       the path to the file
+	 * @param inputSize  the size of each input
+	 * @param targetSize the size of each target
+	 */
+	public FileDataset(String file, int inputSize, int targetSize) {
+		if (inputSize <= 0 || targetSize <= 0)
+			throw new IllegalArgumentException("Input and target sizes must be > 0.");
+
+		long recordSize = (long) (inputSize + targetSize) * Float.BYTES;
+		long length = new File(file).length();
+		if (length % recordSize != 0)
+			throw new IllegalArgumentException("Invalid file length.");
+
+		this.file = file;
+		this.inputSize = inputSize;
+		this.targetSize = targetSize;
+		this.size = (int) (length / recordSize);
+	}
+
+	/**
+	 * Writes a sample to an output stream, in the format read by file datasets.
+	 *
+	 * @param input  the input
+	 * @param target the target
+	 * @param dos    the output stream
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public static void write(float[] input, float[] target, DataOutputStream dos) throws IOException {
+		for (float value : input)
+			dos.writeFloat(value);
+		for (float value : target)
+			dos.writeFloat(value);
+	}
+
+	public Iterator<float[][]> iterator() {
+		DataInputStream dis;
+		try {
+			dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 16384));
+		} catch (FileNotFoundException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return new Iterator<float[][]>() {
+			private int position;
+
+			public boolean hasNext() {
+				return position < size;
+			}
+
+			public float[][] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				float[] input = new float[inputSize];
+				float[] target = new float[targetSize];
+
+				try {
+					for (int i = 0; i < inputSize; i++)
+						input[i] = dis.readFloat();
+					for (int i = 0; i < targetSize; i++)
+						target[i] = dis.readFloat();
+
+					// the file is closed once the epoch is finished
+					if (++position == size)
+						dis.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+
+				return new float[][]{input, target};
+			}
+		};
+	}
+
+	public int size() {
+		return size;
+	}
+}
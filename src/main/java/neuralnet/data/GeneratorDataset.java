@@ -0,0 +1,35 @@
+package neuralnet.data;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Generator datasets create samples on demand, for example from a database cursor or from a function. The generator is called once
+ * for each epoch, and the epoch ends when the iterator it returns is exhausted.
+ */
+public class GeneratorDataset implements Dataset {
+	private final Supplier<Iterator<float[][]>> generator;
+	private final int size;
+
+	/**
+	 * Creates a dataset from a generator.
+	 *
+	 * @param generator the generator, returning an iterator of samples for each epoch
+	 * @param size      the amount of samples in an epoch, or -1 if it is unknown
+	 */
+	public GeneratorDataset(Supplier<Iterator<float[][]>> generator, int size) {
+		Objects.requireNonNull(generator);
+
+		this.generator = generator;
+		this.size = size;
+	}
+
+	public Iterator<float[][]> iterator() {
+		return generator.get();
+	}
+
+	public int size() {
+		return size;
+	}
+}
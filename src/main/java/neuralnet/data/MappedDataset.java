@@ -0,0 +1,337 @@
+package neuralnet.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Mapped datasets read samples from files mapped into memory, so that datasets larger than the heap can be loaded instantly. Samples
+ * are normalized as they are copied into batches, so inputs can be stored compactly as bytes.
+ * <p>
+ * The dataset format is a header of eight little-endian integers: magic, version, size, input size, target size, input type, target
+ * type and a reserved integer. The inputs of all samples follow contiguously, then the targets. IDX files, such as MNIST, can also be
+ * read directly.
+ */
+public class MappedDataset implements RandomAccessDataset {
+	private static final int MAGIC = 0x4E4E4453;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	private final Region inputs, targets;
+	private final int size;
+
+	private boolean shuffle = true;
+	private float scale, shift;
+	private long seed = new Random().nextLong();
+
+	private MappedDataset(Region inputs, Region targets) {
+		if (inputs.size != targets.size)
+			throw new IllegalArgumentException("Input and target amounts do not match.");
+
+		this.inputs = inputs;
+		this.targets = targets;
+		this.size = inputs.size;
+
+		// bytes are usually pixels, which are normalized to [0, 1]
+		scale = inputs.type == Type.UINT8 ? 1 / 255.0f : 1;
+	}
+
+	/**
+	 * Opens a dataset file.
+	 *
+	 * @param file the path to the file
+	 * @return the dataset
+	 * @throws IOException if there is an error reading from the file
+	 */
+	public static MappedDataset open(String file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			if (header.getInt() != MAGIC)
+				throw new IOException("Invalid dataset file.");
+			if (header.getInt() != VERSION)
+				throw new IOException("Unsupported dataset version.");
+
+			int size = header.getInt();
+			int inputSize = header.getInt();
+			int targetSize = header.getInt();
+			Type inputType = Type.values()[header.getInt()];
+			Type targetType = Type.values()[header.getInt()];
+
+			long targetPosition = HEADER_SIZE + (long) size * inputSize * inputType.bytes;
+
+			return new MappedDataset(new Region(channel, HEADER_SIZE, size, inputSize, inputType, ByteOrder.LITTLE_ENDIAN),
+				new Region(channel, targetPosition, size, targetSize, targetType, ByteOrder.LITTLE_ENDIAN));
+		}
+	}
+
+	/**
+	 * Opens a pair of IDX files, such as the MNIST dataset. Each label becomes a target with a single element, for sparse costs.
+	 *
+	 * @param images the path to the images
+	 * @param labels the path to the labels
+	 * @return the dataset
+	 * @throws IOException if there is an error reading from the files
+	 */
+	public static MappedDataset openIdx(String images, String labels) throws IOException {
+		return new MappedDataset(mapIdx(images), mapIdx(labels));
+	}
+
+	private static Region mapIdx(String file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 4).order(ByteOrder.BIG_ENDIAN);
+
+			if (header.get() != 0 || header.get() != 0)
+				throw new IOException("Invalid IDX file.");
+
+			Type type;
+			switch (header.get()) {
+				case 0x08:
+					type = Type.UINT8;
+					break;
+				case 0x0D:
+					type = Type.FLOAT32;
+					break;
+				default:
+					throw new IOException("Unsupported IDX type.");
+			}
+
+			int dimensions = header.get();
+			ByteBuffer shape = channel.map(FileChannel.MapMode.READ_ONLY, 4, 4 * dimensions).order(ByteOrder.BIG_ENDIAN);
+
+			// the first dimension is the amount of samples, the rest are the sample dimensions
+			int size = shape.getInt();
+			int sampleSize = 1;
+			for (int i = 1; i < dimensions; i++)
+				sampleSize *= shape.getInt();
+
+			return new Region(channel, 4 + 4 * dimensions, size, sampleSize, type, ByteOrder.BIG_ENDIAN);
+		}
+	}
+
+	/**
+	 * Writes a dataset to a file, in the format read by mapped datasets.
+	 *
+	 * @param file       the path to the file
+	 * @param dataset    the dataset
+	 * @param inputType  the type to store inputs as
+	 * @param targetType the type to store targets as
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public static void write(String file, Dataset dataset, Type inputType, Type targetType) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			raf.setLength(0);
+
+			int size = 0, inputSize = 0, targetSize = 0;
+
+			// inputs are written to the file, while targets are buffered in a temporary file, as the amount of samples may be unknown
+			File temporary = File.createTempFile("targets", ".bin");
+			try (RandomAccessFile targetFile = new RandomAccessFile(temporary, "rw"); FileChannel targetChannel = targetFile.getChannel()) {
+				channel.position(HEADER_SIZE);
+
+				for (float[][] sample : dataset) {
+					inputSize = sample[0].length;
+					targetSize = sample[1].length;
+
+					writeValues(channel, sample[0], inputType);
+					writeValues(targetChannel, sample[1], targetType);
+					size++;
+				}
+
+				targetChannel.transferTo(0, targetChannel.size(), channel);
+			} finally {
+				if (!temporary.delete())
+					temporary.deleteOnExit();
+			}
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(inputSize).putInt(targetSize)
+				.putInt(inputType.ordinal()).putInt(targetType.ordinal()).putInt(0);
+			header.flip();
+
+			channel.write(header, 0);
+		}
+	}
+
+	private static void writeValues(FileChannel channel, float[] values, Type type) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(values.length * type.bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+		for (float value : values) {
+			if (type == Type.FLOAT32)
+				buffer.putFloat(value);
+			else
+				buffer.put((byte) Math.max(0, Math.min(255, Math.round(value))));
+		}
+
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * Sets whether samples are shuffled each epoch.
+	 *
+	 * @param shuffle whether to shuffle
+	 * @param seed    the seed
+	 */
+	public void setShuffle(boolean shuffle, long seed) {
+		this.shuffle = shuffle;
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the normalization of inputs, which are multiplied by the scale, then added to the shift. Byte inputs are scaled to [0, 1] by
+	 * default.
+	 *
+	 * @param scale the scale
+	 * @param shift the shift
+	 */
+	public void setNormalization(float scale, float shift) {
+		this.scale = scale;
+		this.shift = shift;
+	}
+
+	public int getInputSize() {
+		return inputs.sampleSize;
+	}
+
+	public int getTargetSize() {
+		return targets.sampleSize;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeLong(seed);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		seed = dis.readLong();
+	}
+
+	public int[] order() {
+		int[] order = new int[size];
+		for (int i = 0; i < size; i++)
+			order[i] = i;
+
+		if (shuffle) {
+			// each epoch is seeded by the previous one, so that the seed is the whole state of shuffling
+			Random random = new Random(seed);
+			seed = random.nextLong();
+
+			for (int i = size - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int temp = order[i];
+				order[i] = order[j];
+				order[j] = temp;
+			}
+		}
+
+		return order;
+	}
+
+	public void read(int index, float[] inputs, int inputOffset, float[] targets, int targetOffset) {
+		this.inputs.read(index, inputs, inputOffset, scale, shift);
+		this.targets.read(index, targets, targetOffset, 1, 0);
+	}
+
+	public Iterator<float[][]> iterator() {
+		int[] order = order();
+
+		return new Iterator<float[][]>() {
+			private int position;
+
+			public boolean hasNext() {
+				return position < order.length;
+			}
+
+			public float[][] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				float[][] sample = new float[][]{new float[inputs.sampleSize], new float[targets.sampleSize]};
+				read(order[position++], sample[0], 0, sample[1], 0);
+
+				return sample;
+			}
+		};
+	}
+
+	/**
+	 * The types that values can be stored as.
+	 */
+	public enum Type {
+		FLOAT32(4), UINT8(1);
+
+		private final int bytes;
+
+		Type(int bytes) {
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Regions are contiguous samples of a file. Regions are mapped in several chunks, as a single mapping is limited to 2GB.
+	 */
+	private static class Region {
+		private final int size, sampleSize;
+		private final int samplesPerChunk;
+		private final Type type;
+		private final ByteBuffer[] chunks;
+
+		Region(FileChannel channel, long position, int size, int sampleSize, Type type, ByteOrder order) throws IOException {
+			this.size = size;
+			this.sampleSize = sampleSize;
+			this.type = type;
+
+			long sampleBytes = (long) sampleSize * type.bytes;
+			if (position + size * sampleBytes > channel.size())
+				throw new IOException("File is too short.");
+
+			samplesPerChunk = (int) Math.max(1, Integer.MAX_VALUE / Math.max(1, sampleBytes));
+
+			chunks = new ByteBuffer[(int) (((long) size + samplesPerChunk - 1) / samplesPerChunk)];
+			for (int i = 0; i < chunks.length; i++) {
+				long samples = Math.min(samplesPerChunk, size - (long) i * samplesPerChunk);
+
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position + (long) i * samplesPerChunk * sampleBytes,
+					samples * sampleBytes);
+				chunks[i] = chunk.order(order);
+			}
+		}
+
+		void read(int index, float[] values, int offset, float scale, float shift) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Invalid sample index.");
+
+			ByteBuffer chunk = chunks[index / samplesPerChunk];
+			int position = (index % samplesPerChunk) * sampleSize * type.bytes;
+
+			if (type == Type.FLOAT32) {
+				// duplicating gives a view with its own position, so reads are thread safe
+				FloatBuffer view = ((ByteBuffer) chunk.duplicate().order(chunk.order()).position(position)).asFloatBuffer();
+				view.get(values, offset, sampleSize);
+
+				if (scale != 1 || shift != 0) {
+					for (int i = offset; i < offset + sampleSize; i++)
+						values[i] = values[i] * scale + shift;
+				}
+			} else {
+				for (int i = 0; i < sampleSize; i++)
+					values[offset + i] = (chunk.get(position + i) & 0xFF) * scale + shift;
+			}
+		}
+	}
+}
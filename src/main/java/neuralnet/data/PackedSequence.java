@@ -0,0 +1,117 @@
+package neuralnet.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packed sequences hold a batch of sequences of different lengths without padding. Sequences are sorted from longest to shortest, so at
+ * each timestep the sequences that are still active are the first rows of the batch, and finished sequences are dropped instead of
+ * being computed on.
+ */
+public class PackedSequence {
+	private final float[][] inputs, targets;
+	private final int[] batchSizes;
+
+	private PackedSequence(float[][] inputs, float[][] targets, int[] batchSizes) {
+		this.inputs = inputs;
+		this.targets = targets;
+		this.batchSizes = batchSizes;
+	}
+
+	/**
+	 * Packs a batch of sequences.
+	 *
+	 * @param sequences the input sequences, each an array of timesteps
+	 * @param targets   the targets of each sequence, one element for each timestep
+	 * @return the packed sequence
+	 */
+	public static PackedSequence pack(List<float[][]> sequences, List<float[]> targets) {
+		if (sequences.isEmpty() || sequences.size() != targets.size())
+			throw new IllegalArgumentException("Sequence and target amounts must match and be > 0.");
+
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < sequences.size(); i++)
+			order.add(i);
+		order.sort(Comparator.comparingInt(i -> -sequences.get(i).length));
+
+		int length = sequences.get(order.get(0)).length;
+		int inputSize = sequences.get(order.get(0))[0].length;
+
+		float[][] inputs = new float[length][];
+		float[][] packedTargets = new float[length][];
+		int[] batchSizes = new int[length];
+
+		for (int t = 0; t < length; t++) {
+			int size = 0;
+			while (size < order.size() && sequences.get(order.get(size)).length > t)
+				size++;
+
+			batchSizes[t] = size;
+			inputs[t] = new float[size * inputSize];
+			packedTargets[t] = new float[size];
+
+			for (int b = 0; b < size; b++) {
+				int index = order.get(b);
+
+				System.arraycopy(sequences.get(index)[t], 0, inputs[t], b * inputSize, inputSize);
+				packedTargets[t][b] = targets.get(index)[t];
+			}
+		}
+
+		return new PackedSequence(inputs, packedTargets, batchSizes);
+	}
+
+	/**
+	 * Gets a range of timesteps, for truncated back propagation through time. The arrays are shared, not copied.
+	 *
+	 * @param start  the first timestep
+	 * @param length the amount of timesteps
+	 * @return the range of timesteps
+	 */
+	public PackedSequence slice(int start, int length) {
+		float[][] inputs = new float[length][];
+		float[][] targets = new float[length][];
+		int[] batchSizes = new int[length];
+
+		System.arraycopy(this.inputs, start, inputs, 0, length);
+		System.arraycopy(this.targets, start, targets, 0, length);
+		System.arraycopy(this.batchSizes, start, batchSizes, 0, length);
+
+		return new PackedSequence(inputs, targets, batchSizes);
+	}
+
+	/**
+	 * Gets the amount of timesteps, which is the length of the longest sequence.
+	 *
+	 * @return the amount of timesteps
+	 */
+	public int getLength() {
+		return batchSizes.length;
+	}
+
+	/**
+	 * Gets the total amount of timesteps over all sequences.
+	 *
+	 * @return the amount of active timesteps
+	 */
+	public int getSteps() {
+		int steps = 0;
+		for (int size : batchSizes)
+			steps += size;
+
+		return steps;
+	}
+
+	public float[][] getInputs() {
+		return inputs;
+	}
+
+	public float[][] getTargets() {
+		return targets;
+	}
+
+	public int[] getBatchSizes() {
+		return batchSizes;
+	}
+}
@@ -0,0 +1,105 @@
+package neuralnet.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Prefetch iterators assemble batches on a background thread, so that the next batch (including reading, decoding and augmenting its
+ * samples) is prepared while the current batch trains. A fixed amount of buffers is cycled between the threads, so batches are not
+ * reallocated every step. A batch is recycled when the next batch is requested, so it must not be used after that.
+ */
+public class PrefetchIterator implements Iterator<Batch>, AutoCloseable {
+	private static final Batch EMPTY = new Batch(new float[0], new float[0], 0);
+	private static final Batch END = new Batch(new float[0], new float[0], 0);
+
+	private final BlockingQueue<Batch> free, ready;
+	private final Thread thread;
+
+	private Batch current, next;
+	private volatile Throwable exception;
+
+	/**
+	 * Starts prefetching an epoch of a dataset.
+	 *
+	 * @param dataset   the dataset
+	 * @param batchSize the batch size
+	 * @param buffers   the amount of buffers, 2 for double buffering or 3 for triple buffering
+	 */
+	public PrefetchIterator(Dataset dataset, int batchSize, int buffers) {
+		this(new BatchIterator(dataset, batchSize), buffers);
+	}
+
+	PrefetchIterator(BatchSource batches, int buffers) {
+		if (buffers < 2)
+			throw new IllegalArgumentException("Buffer amount must be >= 2.");
+
+		free = new ArrayBlockingQueue<>(buffers);
+		ready = new ArrayBlockingQueue<>(buffers + 1);
+
+		// buffers are allocated by the batch source once the sample sizes are known
+		for (int i = 0; i < buffers; i++)
+			free.add(EMPTY);
+
+		thread = new Thread(() -> {
+			try {
+				while (batches.hasNext())
+					ready.put(batches.next(free.take()));
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable e) {
+				// errors are also handed over, so that the consumer doesn't wait for a batch that never comes
+				exception = e;
+			}
+
+			ready.offer(END);
+		}, "prefetch");
+
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public boolean hasNext() {
+		if (next == null) {
+			try {
+				next = ready.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+
+		if (next == END && exception != null) {
+			if (exception instanceof Error)
+				throw (Error) exception;
+			if (exception instanceof RuntimeException)
+				throw (RuntimeException) exception;
+
+			throw new IllegalStateException(exception);
+		}
+
+		return next != END;
+	}
+
+	public Batch next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		// the previous batch is finished with, so its buffers can be filled again
+		if (current != null)
+			free.offer(current);
+
+		current = next;
+		next = null;
+
+		return current;
+	}
+
+	/**
+	 * Stops prefetching, if the epoch is not finished.
+	 */
+	public void close() {
+		thread.interrupt();
+	}
+}
@@ -0,0 +1,40 @@
+package neuralnet.data;
+
+/**
+ * Random access datasets can copy samples straight into batch arrays, without allocating an array for each sample.
+ */
+public interface RandomAccessDataset extends Dataset {
+	int getInputSize();
+
+	int getTargetSize();
+
+	/**
+	 * Starts a new epoch.
+	 *
+	 * @return the indices of the samples, in the order of the epoch
+	 */
+	int[] order();
+
+	/**
+	 * Copies a sample into arrays.
+	 *
+	 * @param index        the index of the sample
+	 * @param inputs       the input array
+	 * @param inputOffset  the offset of the input in the input array
+	 * @param targets      the target array
+	 * @param targetOffset the offset of the target in the target array
+	 */
+	void read(int index, float[] inputs, int inputOffset, float[] targets, int targetOffset);
+
+	/**
+	 * Resumes an epoch in a given order, assembling batches in the background.
+	 *
+	 * @param batchSize the batch size
+	 * @param order     the indices of the samples, in the order of the epoch
+	 * @param position  the amount of samples of the epoch already trained on
+	 * @return an iterator over the remaining batches of the epoch
+	 */
+	default PrefetchIterator batches(int batchSize, int[] order, int position) {
+		return new PrefetchIterator(new BatchIterator(this, batchSize, order, position), 2);
+	}
+}
@@ -0,0 +1,149 @@
+package neuralnet.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Sharded datasets shuffle datasets that are larger than memory in two levels. The order of the shards is shuffled each epoch, then the
+ * samples streamed from the shards pass through a shuffle buffer of bounded size, which mixes samples across shard boundaries. Memory use
+ * depends only on the buffer size, regardless of the size of the dataset.
+ */
+public class ShardedDataset implements Dataset {
+	private final List<Dataset> shards;
+	private final int bufferSize;
+	private long seed;
+
+	/**
+	 * Creates a sharded dataset.
+	 *
+	 * @param shards     the shards
+	 * @param bufferSize the amount of samples held in memory
+	 * @param seed       the seed, used for both the shard order and the shuffle buffer
+	 */
+	public ShardedDataset(List<? extends Dataset> shards, int bufferSize, long seed) {
+		if (shards.isEmpty())
+			throw new IllegalArgumentException("Shard amount must be > 0.");
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("Buffer size must be > 0.");
+
+		this.shards = new ArrayList<>(shards);
+		this.bufferSize = bufferSize;
+
+		this.seed = seed;
+	}
+
+	/**
+	 * Opens shards written as file datasets.
+	 *
+	 * @param files      the paths to the shards
+	 * @param inputSize  the size of each input
+	 * @param targetSize the size of each target
+	 * @param bufferSize the amount of samples held in memory
+	 * @param seed       the seed
+	 * @return the dataset
+	 */
+	public static ShardedDataset open(List<String> files, int inputSize, int targetSize, int bufferSize, long seed) {
+		List<Dataset> shards = new ArrayList<>();
+		for (String file : files)
+			shards.add(new FileDataset(file, inputSize, targetSize));
+
+		return new ShardedDataset(shards, bufferSize, seed);
+	}
+
+	/**
+	 * Splits a dataset into shards, written as file datasets.
+	 *
+	 * @param dataset   the dataset
+	 * @param prefix    the prefix of the shard paths, which are followed by the index of the shard
+	 * @param shardSize the amount of samples in each shard
+	 * @return the paths to the shards
+	 * @throws IOException if there is an error writing to the files
+	 */
+	public static List<String> write(Dataset dataset, String prefix, int shardSize) throws IOException {
+		if (shardSize <= 0)
+			throw new IllegalArgumentException("Shard size must be > 0.");
+
+		List<String> files = new ArrayList<>();
+		DataOutputStream dos = null;
+
+		try {
+			int amount = 0;
+			for (float[][] sample : dataset) {
+				if (amount++ % shardSize == 0) {
+					if (dos != null)
+						dos.close();
+
+					String file = prefix + files.size();
+					files.add(file);
+					dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 16384));
+				}
+
+				FileDataset.write(sample[0], sample[1], dos);
+			}
+		} finally {
+			if (dos != null)
+				dos.close();
+		}
+
+		return files;
+	}
+
+	public Iterator<float[][]> iterator() {
+		// each epoch is seeded by the previous one, so that the seed is the whole state of shuffling
+		Random random = new Random(seed);
+		seed = random.nextLong();
+
+		List<Dataset> order = new ArrayList<>(shards);
+		Collections.shuffle(order, random);
+
+		// shards are opened one at a time, so only a single shard is streamed at once
+		Iterator<float[][]> samples = new Iterator<float[][]>() {
+			private final Iterator<Dataset> remaining = order.iterator();
+			private Iterator<float[][]> shard = Collections.emptyIterator();
+
+			public boolean hasNext() {
+				while (!shard.hasNext() && remaining.hasNext())
+					shard = remaining.next().iterator();
+
+				return shard.hasNext();
+			}
+
+			public float[][] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				return shard.next();
+			}
+		};
+
+		return ShuffleDataset.shuffle(samples, bufferSize, random);
+	}
+
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeLong(seed);
+		for (Dataset shard : shards)
+			shard.exportState(dos);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		seed = dis.readLong();
+		for (Dataset shard : shards)
+			shard.importState(dis);
+	}
+
+	public int size() {
+		int size = 0;
+		for (Dataset shard : shards) {
+			if (shard.size() < 0)
+				return -1;
+
+			size += shard.size();
+		}
+
+		return size;
+	}
+}
@@ -0,0 +1,102 @@
+package neuralnet.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Shuffle datasets shuffle a streamed dataset using a buffer of bounded size. Samples are read into the buffer, and each sample returned
+ * is replaced by the next sample of the dataset. Larger buffers give a more uniform shuffle, while memory use stays bounded regardless
+ * of the size of the dataset.
+ */
+public class ShuffleDataset implements Dataset {
+	private final Dataset dataset;
+	private final int bufferSize;
+	private long seed;
+
+	/**
+	 * Wraps a dataset with a shuffle buffer.
+	 *
+	 * @param dataset    the dataset
+	 * @param bufferSize the amount of samples held in memory
+	 * @param seed       the seed
+	 */
+	public ShuffleDataset(Dataset dataset, int bufferSize, long seed) {
+		Objects.requireNonNull(dataset);
+		if (bufferSize <= 0)
+			throw new IllegalArgumentException("Buffer size must be > 0.");
+
+		this.dataset = dataset;
+		this.bufferSize = bufferSize;
+
+		this.seed = seed;
+	}
+
+	/**
+	 * Shuffles a stream of samples using a buffer of bounded size.
+	 *
+	 * @param samples    the samples
+	 * @param bufferSize the amount of samples held in memory
+	 * @param random     the random number generator
+	 * @return an iterator over the shuffled samples
+	 */
+	static Iterator<float[][]> shuffle(Iterator<float[][]> samples, int bufferSize, Random random) {
+		float[][][] buffer = new float[bufferSize][][];
+		int amount = 0;
+		while (amount < bufferSize && samples.hasNext())
+			buffer[amount++] = samples.next();
+
+		int filled = amount;
+		return new Iterator<float[][]>() {
+			private int remaining = filled;
+
+			public boolean hasNext() {
+				return remaining > 0;
+			}
+
+			public float[][] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+
+				int index = random.nextInt(remaining);
+				float[][] sample = buffer[index];
+
+				// refilling the buffer, or shrinking it once the dataset is exhausted
+				if (samples.hasNext()) {
+					buffer[index] = samples.next();
+				} else {
+					buffer[index] = buffer[--remaining];
+					buffer[remaining] = null;
+				}
+
+				return sample;
+			}
+		};
+	}
+
+	public Iterator<float[][]> iterator() {
+		// each epoch is seeded by the previous one, so that the seed is the whole state of shuffling
+		Random random = new Random(seed);
+		seed = random.nextLong();
+
+		return shuffle(dataset.iterator(), bufferSize, random);
+	}
+
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeLong(seed);
+		dataset.exportState(dos);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		seed = dis.readLong();
+		dataset.importState(dis);
+	}
+
+	public int size() {
+		return dataset.size();
+	}
+}
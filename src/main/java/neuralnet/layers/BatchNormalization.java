@@ -1,10 +1,12 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
+import neuralnet.Tensors;
 import neuralnet.activations.Activation;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -37,26 +39,35 @@ public class BatchNormalization implements Layer {
 	}
 
 	BatchNormalization(DataInputStream dis) throws IOException {
+		depth = dis.readInt();
 		height = dis.readInt();
 		width = dis.readInt();
-		depth = dis.readInt();
 		epsilon = dis.readFloat();
 
 		mean = new float[depth];
 		variance = new float[depth];
-		for (int i = 0; i < mean.length; i++) {
-			mean[i] = dis.readFloat();
-			variance[i] = dis.readFloat();
-		}
+		Tensors.read(dis, depth, mean, variance);
 
 		activation = Activation.fromString(dis);
 
 		weights = new float[depth];
 		biases = new float[depth];
-		for (int i = 0; i < weights.length; i++) {
-			weights[i] = dis.readFloat();
-			biases[i] = dis.readFloat();
-		}
+		Tensors.read(dis, depth, weights, biases);
+	}
+
+	private BatchNormalization(BatchNormalization batchNormalization) {
+		mode = batchNormalization.mode;
+		height = batchNormalization.height;
+		width = batchNormalization.width;
+		depth = batchNormalization.depth;
+		epsilon = batchNormalization.epsilon;
+		activation = batchNormalization.activation;
+		initializer = batchNormalization.initializer;
+
+		mean = batchNormalization.mean;
+		variance = batchNormalization.variance;
+		weights = batchNormalization.weights;
+		biases = batchNormalization.biases;
 	}
 
 	public void export(DataOutputStream dos) throws IOException {
@@ -65,20 +76,14 @@ public class BatchNormalization implements Layer {
 		dos.writeInt(width);
 		dos.writeFloat(epsilon);
 
-		for (int i = 0; i < depth; i++) {
-			dos.writeFloat(mean[i]);
-			dos.writeFloat(variance[i]);
-		}
+		Tensors.write(dos, depth, mean, variance);
 
 		activation.export(dos);
 
-		for (int i = 0; i < depth; i++) {
-			dos.writeFloat(weights[i]);
-			dos.writeFloat(biases[i]);
-		}
+		Tensors.write(dos, depth, weights, biases);
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length == 3) {
 			this.depth = dimensions[0];
 			this.height = dimensions[1];
@@ -109,6 +114,9 @@ public class BatchNormalization implements Layer {
 		this.mode = mode;
 	}
 
+	public void setPrecision(Precision precision) {
+	}
+
 	public LayerType getType() {
 		return LayerType.BATCH_NORMALIZATION;
 	}
@@ -192,12 +200,16 @@ public class BatchNormalization implements Layer {
 		return new int[]{depth, height, width};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new BatchNormalization(this);
+	}
+
 	public float[][][] getParameters() {
 		return new float[][][]{{weights, new float[weights.length]}, {biases, new float[biases.length]},
 			{mean, new float[mean.length]}, {variance, new float[variance.length]}};
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	/**
@@ -1,12 +1,15 @@
 package neuralnet.layers;
 
 import neuralnet.GPU;
+import neuralnet.ModelInputStream;
+import neuralnet.Precision;
+import neuralnet.Tensors;
 import neuralnet.activations.Activation;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
 import neuralnet.optimizers.Updater;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 import org.jocl.CL;
 import org.jocl.blast.CLBlastTranspose;
 import org.jocl.cl_mem;
@@ -14,6 +17,7 @@ import org.jocl.cl_mem;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -52,6 +56,8 @@ public class Convolutional implements Layer {
 	private float[] filters, biases;
 	private float[] gradient, biasGradient;
 	private float[] output;
+	private short[] encodedOutput;
+	private Precision precision;
 	private cl_mem inputBuffer;
 
 	private Convolutional(int pad, int stride, int filterAmount, int filterSize, int dilation, Initializer initializer,
@@ -81,7 +87,7 @@ public class Convolutional implements Layer {
 	 *
 	 * @param dis the input stream
 	 */
-	Convolutional(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	Convolutional(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		depth = dis.readInt();
 		inputHeight = dis.readInt();
 		inputWidth = dis.readInt();
@@ -97,25 +103,50 @@ public class Convolutional implements Layer {
 		dilatedSize = dis.readInt();
 
 		activation = Activation.fromString(dis);
-		filterUpdater = updaterType.create(dis);
+		filterUpdater = updaterConfig.create(dis);
 		filters = new float[filterAmount * depth * filterSize * filterSize];
 
-		biasUpdater = updaterType.create(dis);
+		biasUpdater = updaterConfig.create(dis);
 		biases = new float[filterAmount];
 
-		for (int f = 0; f < filterAmount; f++) {
-			biases[f] = dis.readFloat();
+		// models exported for inference only allocate gradients if they are back propagated
+		if (!ModelInputStream.isInference(dis)) {
+			gradient = new float[filters.length];
+			biasGradient = new float[filterAmount];
+		}
 
-			for (int k = 0; k < depth; k++) {
-				for (int m = 0; m < filterSize; m++) {
-					for (int n = 0; n < filterSize; n++) {
-						int index = n + filterSize * (m + filterSize * (k + depth * f));
+		// each bias is followed by its filter
+		Tensors.read(dis, filterAmount, biases, filters);
+	}
 
-						filters[index] = dis.readFloat();
-					}
-				}
-			}
-		}
+	private Convolutional(Convolutional convolutional, UpdaterConfig updaterConfig) {
+		mode = convolutional.mode;
+		depth = convolutional.depth;
+		inputHeight = convolutional.inputHeight;
+		inputWidth = convolutional.inputWidth;
+		padHeight = convolutional.padHeight;
+		padWidth = convolutional.padWidth;
+		pad = convolutional.pad;
+		outputHeight = convolutional.outputHeight;
+		outputWidth = convolutional.outputWidth;
+		stride = convolutional.stride;
+		filterAmount = convolutional.filterAmount;
+		filterSize = convolutional.filterSize;
+		dilation = convolutional.dilation;
+		dilatedSize = convolutional.dilatedSize;
+		initializer = convolutional.initializer;
+		activation = convolutional.activation;
+
+		filters = convolutional.filters;
+		filterUpdater = updaterConfig.create(filters.length, true);
+
+		precision = convolutional.precision;
+
+		biases = convolutional.biases;
+		biasUpdater = updaterConfig.create(biases.length, false);
+
+		gradient = new float[filters.length];
+		biasGradient = new float[filterAmount];
 	}
 
 	static float[] pad(float[] input, int batchSize, int pad, int depth, int padHeight, int padWidth, int inputHeight, int inputWidth) {
@@ -197,7 +228,11 @@ public class Convolutional implements Layer {
 		this.mode = mode;
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setPrecision(Precision precision) {
+		this.precision = precision;
+	}
+
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length < 3)
 			throw new IllegalArgumentException();
 
@@ -227,10 +262,13 @@ public class Convolutional implements Layer {
 			throw new IllegalArgumentException("Invalid filter dimensions.");
 
 		filters = new float[filterAmount * depth * filterSize * filterSize];
-		filterUpdater = updaterType.create(filters.length, true);
+		filterUpdater = updaterConfig.create(filters.length, true);
 
 		biases = new float[filterAmount];
-		biasUpdater = updaterType.create(biases.length, false);
+		biasUpdater = updaterConfig.create(biases.length, false);
+
+		gradient = new float[filters.length];
+		biasGradient = new float[filterAmount];
 
 		int inputSize = depth * filterSize * filterSize;
 
@@ -264,7 +302,7 @@ public class Convolutional implements Layer {
 		this.batchSize = batchSize;
 
 		input = pad(input, batchSize);
-		output = new float[batchSize * filterAmount * outputHeight * outputWidth];
+		float[] output = new float[batchSize * filterAmount * outputHeight * outputWidth];
 
 		int patchSize = dilatedSize * dilatedSize * depth;
 
@@ -319,19 +357,39 @@ public class Convolutional implements Layer {
 		// activation
 		activation.activation(output, batchSize);
 
+		// activations are kept at the layer's precision until back propagation
+		if (precision == null || mode == Mode.EVAL) {
+			this.output = output;
+			encodedOutput = null;
+		} else {
+			this.output = null;
+			encodedOutput = precision.encode(output);
+		}
+
 		return output;
 	}
 
+	private float[] getOutput() {
+		return encodedOutput == null ? output : precision.decode(encodedOutput);
+	}
+
 	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
-		return backward(cost.derivative(output, target, batchSize), calculateDelta);
+		float[] output = getOutput();
+		return backward(cost.derivative(output, target, batchSize), output, calculateDelta);
 	}
 
 	public float[] backward(float[] previousDelta, boolean calculateDelta) {
-		gradient = new float[filterAmount * depth * filterSize * filterSize];
-		biasGradient = new float[filterAmount];
+		return backward(previousDelta, getOutput(), calculateDelta);
+	}
+
+	private float[] backward(float[] previousDelta, float[] output, boolean calculateDelta) {
+		if (gradient == null) {
+			gradient = new float[filters.length];
+			biasGradient = new float[filterAmount];
+		}
 
 		// derivative
-		output = activation.derivative(output);
+		float[] derivative = activation.derivative(output);
 
 		int patchSize = filterSize * filterSize * depth;
 
@@ -344,7 +402,7 @@ public class Convolutional implements Layer {
 						int index = j + outputWidth * (i + outputHeight * (f + filterAmount * b));
 
 						// the bias gradient is the delta, since biases are just added to the output
-						previousDelta[index] *= output[index];
+						previousDelta[index] *= derivative[index];
 						biasGradient[f] += previousDelta[index];
 						deltaMatrix[f + filterAmount * (j + outputWidth * (i + outputHeight * b))] = previousDelta[index];
 					}
@@ -362,12 +420,18 @@ public class Convolutional implements Layer {
 
 		for (int f = 0; f < filterAmount; f++) {
 			for (int i = 0; i < patchSize; i++) {
-				gradient[i + patchSize * f] = result[f + filterAmount * i];
+				gradient[i + patchSize * f] += result[f + filterAmount * i];
 			}
 		}
 
 		if (calculateDelta) {
-			return calculateDelta(previousDelta);
+			float[] delta = calculateDelta(previousDelta);
+
+			// deltas are passed on at the layer's precision
+			if (precision != null)
+				precision.round(delta);
+
+			return delta;
 		}
 
 		return null;
@@ -439,9 +503,27 @@ public class Convolutional implements Layer {
 		return removePad(input, batchSize, pad, depth, padWidth, inputHeight, inputWidth);
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 		biasUpdater.update(biases, biasGradient, length);
 		filterUpdater.update(filters, gradient, length);
+
+		Arrays.fill(gradient, 0);
+		Arrays.fill(biasGradient, 0);
+	}
+
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new Convolutional(this, updaterConfig);
+	}
+
+	/**
+	 * Creates an int8 copy of the layer for inference, with a scale for each filter.
+	 *
+	 * @param inputRange the largest magnitude of inputs, calibrated on sample data
+	 * @return the quantized layer
+	 */
+	public Layer quantize(float inputRange) {
+		return new QuantizedConvolutional(depth, inputHeight, inputWidth, pad, stride, filterAmount, filterSize, dilation, activation,
+			filters, biases, inputRange);
 	}
 
 	public float[][][] getParameters() {
@@ -466,22 +548,10 @@ public class Convolutional implements Layer {
 
 		activation.export(dos);
 
-		filterUpdater.export(dos);
-		biasUpdater.export(dos);
+		UpdaterConfig.exportState(filterUpdater, dos);
+		UpdaterConfig.exportState(biasUpdater, dos);
 
-		for (int f = 0; f < filterAmount; f++) {
-			dos.writeFloat(biases[f]);
-
-			for (int k = 0; k < depth; k++) {
-				for (int m = 0; m < filterSize; m++) {
-					for (int n = 0; n < filterSize; n++) {
-						int index = n + filterSize * (m + filterSize * (k + depth * f));
-
-						dos.writeFloat(filters[index]);
-					}
-				}
-			}
-		}
+		Tensors.write(dos, filterAmount, biases, filters);
 	}
 
 	public int[] getOutputDimensions() {
@@ -1,11 +1,14 @@
 package neuralnet.layers;
 
 import neuralnet.GPU;
+import neuralnet.ModelInputStream;
+import neuralnet.Precision;
+import neuralnet.Tensors;
 import neuralnet.activations.Activation;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
 import neuralnet.optimizers.Updater;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 import org.jocl.CL;
 import org.jocl.blast.CLBlastTranspose;
 import org.jocl.cl_mem;
@@ -13,6 +16,7 @@ import org.jocl.cl_mem;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Objects;
 
@@ -24,7 +28,6 @@ import java.util.Objects;
 public class Dense implements Layer {
 	private Mode mode;
 
-	private int batchSize;
 	private int inputSize, outputSize;
 	private float temperature;
 	private Initializer initializer;
@@ -36,36 +39,34 @@ public class Dense implements Layer {
 	private cl_mem weightBuffer;
 	private LinkedList<cl_mem> inputs = new LinkedList<>();
 	private LinkedList<float[]> outputs = new LinkedList<>();
+	private LinkedList<short[]> encodedOutputs = new LinkedList<>();
+	private Precision precision;
 
 	/**
 	 * Initializes a Dense layer neural network from a file.
 	 *
 	 * @param dis the input stream
 	 */
-	Dense(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	Dense(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		inputSize = dis.readInt();
 		outputSize = dis.readInt();
 		temperature = dis.readFloat();
 		activation = Activation.fromString(dis);
 
 		weights = new float[outputSize * inputSize];
-		weightUpdater = updaterType.create(dis);
+		weightUpdater = updaterConfig.create(dis);
 
 		biases = new float[outputSize];
-		biasUpdater = updaterType.create(dis);
+		biasUpdater = updaterConfig.create(dis);
 
-		gradient = new float[outputSize * inputSize];
-		biasGradient = new float[outputSize];
-
-		for (int i = 0; i < outputSize; i++) {
-			biases[i] = dis.readFloat();
-
-			for (int j = 0; j < inputSize; j++) {
-				int index = j + inputSize * i;
-
-				weights[index] = dis.readFloat();
-			}
+		// models exported for inference only allocate gradients if they are back propagated
+		if (!ModelInputStream.isInference(dis)) {
+			gradient = new float[outputSize * inputSize];
+			biasGradient = new float[outputSize];
 		}
+
+		// each bias is followed by its row of weights
+		Tensors.read(dis, outputSize, biases, weights);
 	}
 
 	private Dense(int outputSize, float temperature, Initializer initializer, Activation activation) {
@@ -86,11 +87,35 @@ public class Dense implements Layer {
 		this.activation = activation;
 	}
 
+	private Dense(Dense dense, UpdaterConfig updaterConfig) {
+		mode = dense.mode;
+		inputSize = dense.inputSize;
+		outputSize = dense.outputSize;
+		temperature = dense.temperature;
+		initializer = dense.initializer;
+		activation = dense.activation;
+
+		weights = dense.weights;
+		weightUpdater = updaterConfig.create(weights.length, true);
+
+		precision = dense.precision;
+
+		biases = dense.biases;
+		biasUpdater = updaterConfig.create(biases.length, false);
+
+		gradient = new float[outputSize * inputSize];
+		biasGradient = new float[outputSize];
+	}
+
 	public void setMode(Mode mode) {
 		this.mode = mode;
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setPrecision(Precision precision) {
+		this.precision = precision;
+	}
+
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		inputSize = dimensions[0];
 		for (int i = 1; i < dimensions.length; i++)
 			inputSize *= dimensions[i];
@@ -103,10 +128,10 @@ public class Dense implements Layer {
 			throw new IllegalArgumentException("Temperature must be > 0.");
 
 		weights = new float[outputSize * inputSize];
-		weightUpdater = updaterType.create(weights.length, true);
+		weightUpdater = updaterConfig.create(weights.length, true);
 
 		biases = new float[outputSize];
-		biasUpdater = updaterType.create(biases.length, false);
+		biasUpdater = updaterConfig.create(biases.length, false);
 
 		gradient = new float[outputSize * inputSize];
 		biasGradient = new float[outputSize];
@@ -120,13 +145,25 @@ public class Dense implements Layer {
 		}
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new Dense(this, updaterConfig);
+	}
+
+	/**
+	 * Creates an int8 copy of the layer for inference, with a scale for each output.
+	 *
+	 * @param inputRange the largest magnitude of inputs, calibrated on sample data
+	 * @return the quantized layer
+	 */
+	public Layer quantize(float inputRange) {
+		return new QuantizedDense(inputSize, outputSize, temperature, activation, weights, biases, inputRange);
+	}
+
 	public float[][][] getParameters() {
 		return new float[][][]{{weights, gradient}, {biases, biasGradient}};
 	}
 
 	public float[] forward(float[] input, int batchSize) {
-		this.batchSize = batchSize;
-
 		float[] output = new float[batchSize * outputSize];
 
 		for (int b = 0; b < batchSize; b++)
@@ -159,7 +196,12 @@ public class Dense implements Layer {
 			weightBuffer = null;
 		} else {
 			inputs.push(inputBuffer);
-			outputs.push(output);
+
+			// activations are kept at the layer's precision until back propagation
+			if (precision == null)
+				outputs.push(output);
+			else
+				encodedOutputs.push(precision.encode(output));
 		}
 
 		return output;
@@ -167,20 +209,36 @@ public class Dense implements Layer {
 
 	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
 		float[] previousDelta;
-		float[] output = outputs.peekFirst();
+		float[] output = popOutput();
+		int batchSize = output.length / outputSize;
 
 		if (activation.getType() == Activation.Type.SOFTMAX)
 			previousDelta = cost.derivativeSoftmax(output, target, batchSize);
 		else
 			previousDelta = cost.derivative(output, target, batchSize);
 
-		return backward(previousDelta, calculateDelta);
+		return backward(previousDelta, output, calculateDelta);
 	}
 
 	public float[] backward(float[] previousDelta, boolean calculateDelta) {
-		float[] output = outputs.pop();
+		return backward(previousDelta, popOutput(), calculateDelta);
+	}
+
+	private float[] popOutput() {
+		return precision == null ? outputs.pop() : precision.decode(encodedOutputs.pop());
+	}
+
+	private float[] backward(float[] previousDelta, float[] output, boolean calculateDelta) {
 		output = activation.derivative(output);
 
+		// the batch size of each timestep is kept with its output, as packed sequences shrink over time
+		int batchSize = output.length / outputSize;
+
+		if (gradient == null) {
+			gradient = new float[outputSize * inputSize];
+			biasGradient = new float[outputSize];
+		}
+
 		for (int b = 0; b < batchSize; b++) {
 			for (int i = 0; i < outputSize; i++) {
 				int index = i + outputSize * b;
@@ -195,7 +253,8 @@ public class Dense implements Layer {
 		cl_mem deltaBuffer = GPU.gpuAlloc(CL.CL_MEM_READ_ONLY, previousDelta.length, previousDelta);
 		cl_mem inputBuffer = inputs.pop();
 
-		gradient = GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
+		// accumulated in place, so several batches can be back propagated before an update
+		GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
 			inputSize, batchSize, deltaBuffer, outputSize, inputBuffer, inputSize, gradient, inputSize);
 
 		CL.clReleaseMemObject(inputBuffer);
@@ -211,18 +270,22 @@ public class Dense implements Layer {
 			weightBuffer = null;
 		}
 
+		// deltas are passed on at the layer's precision
+		if (precision != null && delta != null)
+			precision.round(delta);
+
 		return delta;
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 		CL.clReleaseMemObject(weightBuffer);
 		weightBuffer = null;
 
 		weightUpdater.update(weights, gradient, length);
 		biasUpdater.update(biases, biasGradient, length);
 
-		gradient = new float[outputSize * inputSize];
-		biasGradient = new float[outputSize];
+		Arrays.fill(gradient, 0);
+		Arrays.fill(biasGradient, 0);
 	}
 
 	public void export(DataOutputStream dos) throws IOException {
@@ -232,18 +295,10 @@ public class Dense implements Layer {
 
 		activation.export(dos);
 
-		weightUpdater.export(dos);
-		biasUpdater.export(dos);
-
-		for (int i = 0; i < outputSize; i++) {
-			dos.writeFloat(biases[i]);
+		UpdaterConfig.exportState(weightUpdater, dos);
+		UpdaterConfig.exportState(biasUpdater, dos);
 
-			for (int j = 0; j < inputSize; j++) {
-				int index = j + inputSize * i;
-
-				dos.writeFloat(weights[index]);
-			}
-		}
+		Tensors.write(dos, outputSize, biases, weights);
 	}
 
 	public int[] getOutputDimensions() {
@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -33,7 +34,7 @@ public class Dropout implements Layer {
 		dropout = dis.readFloat();
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		this.dimensions = dimensions;
 
 		inputSize = dimensions[0];
@@ -45,6 +46,9 @@ public class Dropout implements Layer {
 		this.mode = mode;
 	}
 
+	public void setPrecision(Precision precision) {
+	}
+
 	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
 		if (calculateDelta) {
 			return cost.derivative(output, target, batchSize);
@@ -65,11 +69,19 @@ public class Dropout implements Layer {
 		return dimensions;
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		Dropout replica = new Dropout(dropout);
+		replica.setMode(mode);
+		replica.setDimensions(dimensions == null ? new int[]{inputSize} : dimensions, updaterConfig);
+
+		return replica;
+	}
+
 	public float[][][] getParameters() {
 		return new float[0][][];
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	public float[] forward(float[] input, int batchSize) {
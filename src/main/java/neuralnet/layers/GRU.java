@@ -1,12 +1,15 @@
 package neuralnet.layers;
 
 import neuralnet.GPU;
+import neuralnet.ModelInputStream;
+import neuralnet.Precision;
+import neuralnet.Tensors;
 import neuralnet.activations.Activation;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
 import neuralnet.optimizers.Updater;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 import org.jocl.blast.CLBlastTranspose;
 
 import java.io.DataInputStream;
@@ -15,11 +18,11 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Objects;
+import java.util.stream.IntStream;
 
 public class GRU implements Layer {
 	private Mode mode = Mode.TRAIN;
 
-	private int batchSize;
 	private int inputSize, outputSize;
 
 	// weights
@@ -61,7 +64,7 @@ public class GRU implements Layer {
 		bh = new float[outputSize];
 	}
 
-	GRU(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	GRU(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		inputSize = dis.readInt();
 		outputSize = dis.readInt();
 
@@ -79,26 +82,49 @@ public class GRU implements Layer {
 		biasUpdaters = new Updater[3];
 		weightUpdaters = new Updater[3];
 		for (int i = 0; i < 3; i++) {
-			weightUpdaters[i] = updaterType.create(dis);
-			biasUpdaters[i] = updaterType.create(dis);
+			weightUpdaters[i] = updaterConfig.create(dis);
+			biasUpdaters[i] = updaterConfig.create(dis);
 		}
 
-		for (int i = 0; i < outputSize * inputSize + outputSize * outputSize; i++) {
-			wz[i] = dis.readFloat();
-			wr[i] = dis.readFloat();
-			wh[i] = dis.readFloat();
-		}
+		// the gates are interleaved value by value
+		Tensors.read(dis, wz.length, wz, wr, wh);
+		Tensors.read(dis, outputSize, bz, br, bh);
+
+		init();
+
+		// models exported for inference only allocate gradients if they are back propagated
+		if (!ModelInputStream.isInference(dis))
+			initGradients();
+	}
 
-		for (int i = 0; i < outputSize; i++) {
-			bz[i] = dis.readFloat();
-			br[i] = dis.readFloat();
-			bh[i] = dis.readFloat();
+	private GRU(GRU gru, UpdaterConfig updaterConfig) {
+		mode = gru.mode;
+		inputSize = gru.inputSize;
+		outputSize = gru.outputSize;
+		initializer = gru.initializer;
+		hiddenActivation = gru.hiddenActivation;
+		activation = gru.activation;
+
+		wz = gru.wz;
+		wr = gru.wr;
+		wh = gru.wh;
+
+		bz = gru.bz;
+		br = gru.br;
+		bh = gru.bh;
+
+		weightUpdaters = new Updater[3];
+		biasUpdaters = new Updater[3];
+		for (int i = 0; i < 3; i++) {
+			weightUpdaters[i] = updaterConfig.create(outputSize * inputSize + outputSize * outputSize, true);
+			biasUpdaters[i] = updaterConfig.create(outputSize, false);
 		}
 
 		init();
+		initGradients();
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		inputSize = dimensions[0];
 		for (int i = 1; i < dimensions.length; i++)
 			inputSize *= dimensions[i];
@@ -115,8 +141,8 @@ public class GRU implements Layer {
 		weightUpdaters = new Updater[3];
 		biasUpdaters = new Updater[3];
 		for (int i = 0; i < 3; i++) {
-			weightUpdaters[i] = updaterType.create(outputSize * inputSize + outputSize * outputSize, true);
-			biasUpdaters[i] = updaterType.create(outputSize, false);
+			weightUpdaters[i] = updaterConfig.create(outputSize * inputSize + outputSize * outputSize, true);
+			biasUpdaters[i] = updaterConfig.create(outputSize, false);
 		}
 
 		for (int i = 0; i < outputSize * inputSize; i++) {
@@ -132,6 +158,7 @@ public class GRU implements Layer {
 		}
 
 		init();
+		initGradients();
 	}
 
 	private void init() {
@@ -141,6 +168,15 @@ public class GRU implements Layer {
 
 		transposeWeights();
 
+		xh = new LinkedList<>();
+		xrh = new LinkedList<>();
+		hc = new LinkedList<>();
+		z = new LinkedList<>();
+		r = new LinkedList<>();
+		y = new LinkedList<>();
+	}
+
+	private void initGradients() {
 		dWz = new float[outputSize * inputSize + outputSize * outputSize];
 		dWr = new float[outputSize * inputSize + outputSize * outputSize];
 		dWh = new float[outputSize * inputSize + outputSize * outputSize];
@@ -148,17 +184,10 @@ public class GRU implements Layer {
 		dBz = new float[outputSize];
 		dBr = new float[outputSize];
 		dBh = new float[outputSize];
-
-		xh = new LinkedList<>();
-		xrh = new LinkedList<>();
-		hc = new LinkedList<>();
-		z = new LinkedList<>();
-		r = new LinkedList<>();
-		y = new LinkedList<>();
 	}
 
 	private void transposeWeights() {
-		for (int i = 0; i < outputSize; i++) {
+		IntStream.range(0, outputSize).parallel().forEach(i -> {
 			for (int j = 0; j < inputSize + outputSize; j++) {
 				int index = j + (inputSize + outputSize) * i;
 				int transposedIndex = i + outputSize * j;
@@ -167,7 +196,18 @@ public class GRU implements Layer {
 				wrT[transposedIndex] = wr[index];
 				whT[transposedIndex] = wh[index];
 			}
-		}
+		});
+	}
+
+	public void resetState() {
+		h = null;
+
+		xh.clear();
+		xrh.clear();
+		hc.clear();
+		z.clear();
+		r.clear();
+		y.clear();
 	}
 
 	public int[] getOutputDimensions() {
@@ -182,20 +222,12 @@ public class GRU implements Layer {
 		activation.export(dos);
 
 		for (int i = 0; i < 3; i++) {
-			weightUpdaters[i].export(dos);
-			biasUpdaters[i].export(dos);
+			UpdaterConfig.exportState(weightUpdaters[i], dos);
+			UpdaterConfig.exportState(biasUpdaters[i], dos);
 		}
 
-		exportParameters(outputSize * inputSize + outputSize * outputSize, wz, wr, wh, dos);
-		exportParameters(outputSize, bz, br, bh, dos);
-	}
-
-	private void exportParameters(int length, float[] z, float[] r, float[] h, DataOutputStream dos) throws IOException {
-		for (int i = 0; i < length; i++) {
-			dos.writeFloat(z[i]);
-			dos.writeFloat(r[i]);
-			dos.writeFloat(h[i]);
-		}
+		Tensors.write(dos, wz.length, wz, wr, wh);
+		Tensors.write(dos, outputSize, bz, br, bh);
 	}
 
 	public void setMode(Mode mode) {
@@ -217,15 +249,24 @@ public class GRU implements Layer {
 		h = null;
 		dh = null;
 
-		dWz = new float[outputSize * inputSize + outputSize * outputSize];
-		dWr = new float[outputSize * inputSize + outputSize * outputSize];
-		dWh = new float[outputSize * inputSize + outputSize * outputSize];
+		clearGradients();
+		transposeWeights();
+	}
 
-		dBz = new float[outputSize];
-		dBr = new float[outputSize];
-		dBh = new float[outputSize];
+	public void setPrecision(Precision precision) {
+	}
 
-		transposeWeights();
+	private void clearGradients() {
+		if (dWz == null)
+			return;
+
+		Arrays.fill(dWz, 0);
+		Arrays.fill(dWr, 0);
+		Arrays.fill(dWh, 0);
+
+		Arrays.fill(dBz, 0);
+		Arrays.fill(dBr, 0);
+		Arrays.fill(dBh, 0);
 	}
 
 	public LayerType getType() {
@@ -233,8 +274,6 @@ public class GRU implements Layer {
 	}
 
 	public float[] forward(float[] input, int batchSize) {
-		this.batchSize = batchSize;
-
 		// checking if first in series
 		if (h == null) {
 			h = new float[batchSize * outputSize];
@@ -242,6 +281,9 @@ public class GRU implements Layer {
 			// initializing h for gradient check
 			if (mode == Mode.GRADIENT_CHECK)
 				Arrays.fill(h, 0.1f);
+		} else if (h.length < batchSize * outputSize) {
+			// the state only grows, since with packed sequences only its first rows are still active, the rest are finished sequences
+			h = Arrays.copyOf(h, batchSize * outputSize);
 		}
 
 		// because weights change they must be re-transposed
@@ -296,7 +338,7 @@ public class GRU implements Layer {
 			}
 		}
 
-		System.arraycopy(h, 0, y, 0, h.length);
+		System.arraycopy(h, 0, y, 0, y.length);
 
 		// adding items to linked list for backpropagation
 		this.xh.push(xh);
@@ -310,22 +352,32 @@ public class GRU implements Layer {
 	}
 
 	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
-		return backward(cost.derivative(y.pop(), target, batchSize), calculateDelta);
+		float[] y = this.y.pop();
+		return backward(cost.derivative(y, target, y.length / outputSize), calculateDelta);
 	}
 
 	public float[] backward(float[] previousDelta, boolean calculateDelta) {
+		// popping values to go backwards from time
+		float[] xh = this.xh.pop();
+
+		// the batch size of each timestep is kept with its values, as packed sequences grow going backwards
+		int batchSize = xh.length / (inputSize + outputSize);
+
 		float[] dx = new float[batchSize * inputSize];
 
+		if (dWz == null)
+			initGradients();
+
 		if (dh == null)
 			dh = new float[batchSize * outputSize];
+		else if (dh.length < batchSize * outputSize)
+			dh = Arrays.copyOf(dh, batchSize * outputSize);
 
 		// these variable represent before-activation derivatives
 		float[] dr = new float[batchSize * outputSize];
 		float[] dz = new float[batchSize * outputSize];
 		float[] dhc = new float[batchSize * outputSize];
 
-		// popping values to go backwards from time
-		float[] xh = this.xh.pop();
 		float[] xrh = this.xrh.pop();
 		float[] hc = this.hc.pop();
 		float[] z = this.z.pop();
@@ -373,12 +425,12 @@ public class GRU implements Layer {
 			System.arraycopy(delta, (inputSize + outputSize) * b, dh, outputSize * b, outputSize);
 		}
 
-		// updating parameters
-		dWz = GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
+		// updating parameters, accumulated in place
+		GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
 			inputSize + outputSize, batchSize, dz, outputSize, xh, inputSize + outputSize, dWz, inputSize + outputSize);
-		dWr = GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
+		GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
 			inputSize + outputSize, batchSize, dr, outputSize, xh, inputSize + outputSize, dWr, inputSize + outputSize);
-		dWh = GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
+		GPU.sgemm(CLBlastTranspose.CLBlastTransposeYes, CLBlastTranspose.CLBlastTransposeNo, outputSize,
 			inputSize + outputSize, batchSize, dhc, outputSize, xrh, inputSize + outputSize, dWh, inputSize + outputSize);
 
 		for (int b = 0; b < batchSize; b++) {
@@ -394,25 +446,15 @@ public class GRU implements Layer {
 		return dx;
 	}
 
-	public float[][][] getParameters() {
-		return new float[][][]{{wz, dWz}, {wr, dWr}, {wh, dWh}, {bz, dBz}, {br, dBr}, {bh, dBh}};
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new GRU(this, updaterConfig);
 	}
 
-	private void clipGradient(float[] gradient) {
-		float clip = 1;
-		for (int i = 0; i < gradient.length; i++) {
-			gradient[i] = Math.max(Math.min(gradient[i], clip), -clip);
-		}
+	public float[][][] getParameters() {
+		return new float[][][]{{wz, dWz}, {wr, dWr}, {wh, dWh}, {bz, dBz}, {br, dBr}, {bh, dBh}};
 	}
 
-	public void update(int length) {
-		clipGradient(dWz);
-		clipGradient(dWr);
-		clipGradient(dWh);
-		clipGradient(dBz);
-		clipGradient(dBr);
-		clipGradient(dBh);
-
+	public void update(float length) {
 		weightUpdaters[0].update(wz, dWz, length);
 		weightUpdaters[1].update(wr, dWr, length);
 		weightUpdaters[2].update(wh, dWh, length);
@@ -427,14 +469,7 @@ public class GRU implements Layer {
 		h = null;
 		dh = null;
 
-		// clearing gradients
-		dWz = new float[outputSize * inputSize + outputSize * outputSize];
-		dWr = new float[outputSize * inputSize + outputSize * outputSize];
-		dWh = new float[outputSize * inputSize + outputSize * outputSize];
-
-		dBz = new float[outputSize];
-		dBr = new float[outputSize];
-		dBh = new float[outputSize];
+		clearGradients();
 
 		// clearing history
 		xh.clear();
@@ -1,9 +1,10 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -52,7 +53,7 @@ public class Inception implements Layer {
 		};
 	}
 
-	Inception(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	Inception(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		depth = dis.readInt();
 		height = dis.readInt();
 		width = dis.readInt();
@@ -64,12 +65,29 @@ public class Inception implements Layer {
 
 		bottleneck = new Layer[dis.readInt()];
 		for (int i = 0; i < bottleneck.length; i++) {
-			bottleneck[i] = LayerType.fromString(dis, updaterType);
+			bottleneck[i] = LayerType.fromString(dis, updaterConfig);
 		}
 
 		conv = new Layer[dis.readInt()];
 		for (int i = 0; i < conv.length; i++) {
-			conv[i] = LayerType.fromString(dis, updaterType);
+			conv[i] = LayerType.fromString(dis, updaterConfig);
+		}
+	}
+
+	private Inception(Inception inception, UpdaterConfig updaterConfig) {
+		depth = inception.depth;
+		height = inception.height;
+		width = inception.width;
+		filterAmounts = inception.filterAmounts;
+
+		bottleneck = new Layer[inception.bottleneck.length];
+		for (int i = 0; i < bottleneck.length; i++) {
+			bottleneck[i] = inception.bottleneck[i].replicate(updaterConfig);
+		}
+
+		conv = new Layer[inception.conv.length];
+		for (int i = 0; i < conv.length; i++) {
+			conv[i] = inception.conv[i].replicate(updaterConfig);
 		}
 	}
 
@@ -96,7 +114,7 @@ public class Inception implements Layer {
 		}
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length != 3)
 			throw new IllegalArgumentException("Invalid input dimensions.");
 
@@ -105,11 +123,11 @@ public class Inception implements Layer {
 		this.width = dimensions[2];
 
 		for (Layer layer : bottleneck) {
-			layer.setDimensions(dimensions, updaterType);
+			layer.setDimensions(dimensions, updaterConfig);
 		}
 
 		for (int i = 0; i < conv.length; i++) {
-			conv[i].setDimensions(bottleneck[i + 1].getOutputDimensions(), updaterType);
+			conv[i].setDimensions(bottleneck[i + 1].getOutputDimensions(), updaterConfig);
 		}
 	}
 
@@ -123,6 +141,16 @@ public class Inception implements Layer {
 		}
 	}
 
+	public void setPrecision(Precision precision) {
+		for (Layer layer : bottleneck) {
+			layer.setPrecision(precision);
+		}
+
+		for (Layer layer : conv) {
+			layer.setPrecision(precision);
+		}
+	}
+
 	public LayerType getType() {
 		return LayerType.INCEPTION;
 	}
@@ -216,6 +244,10 @@ public class Inception implements Layer {
 		return new int[]{(filterAmounts[0] + filterAmounts[3] + filterAmounts[4] + filterAmounts[5]), height, width};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new Inception(this, updaterConfig);
+	}
+
 	public float[][][] getParameters() {
 		int length = 0;
 
@@ -243,7 +275,7 @@ public class Inception implements Layer {
 		return parameters;
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 		for (Layer layer : bottleneck) {
 			layer.update(length);
 		}
@@ -0,0 +1,85 @@
+package neuralnet.layers;
+
+import neuralnet.Sweep;
+
+/**
+ * Symmetric int8 quantization, where a value is its byte multiplied by a scale. Products of bytes are summed in ints, so only the
+ * result of a dot product is converted back to a float.
+ */
+final class Int8 {
+	private Int8() {
+	}
+
+	/**
+	 * Quantizes each channel of a tensor with its own scale, so that the largest magnitude of each channel maps to 127.
+	 *
+	 * @param values   the values, with channels one after another
+	 * @param channels the amount of channels
+	 * @param output   the quantized values
+	 * @return the scale of each channel
+	 */
+	static float[] quantizeChannels(float[] values, int channels, byte[] output) {
+		int length = values.length / channels;
+		float[] scales = new float[channels];
+
+		for (int c = 0; c < channels; c++) {
+			float max = 0;
+			for (int i = c * length; i < (c + 1) * length; i++)
+				max = Math.max(max, Math.abs(values[i]));
+
+			// a channel of zeros stays zero with any scale
+			scales[c] = max == 0 ? 1 : max / 127;
+			quantize(values, c * length, (c + 1) * length, scales[c], output);
+		}
+
+		return scales;
+	}
+
+	/**
+	 * Quantizes values with a single scale. Values outside of the range of the scale are clamped.
+	 *
+	 * @param values the values
+	 * @param scale  the scale
+	 * @return the quantized values
+	 */
+	static byte[] quantize(float[] values, float scale) {
+		byte[] output = new byte[values.length];
+		Sweep.run(values.length, (start, end) -> quantize(values, start, end, scale, output));
+
+		return output;
+	}
+
+	private static void quantize(float[] values, int start, int end, float scale, byte[] output) {
+		float inverse = 1 / scale;
+		for (int i = start; i < end; i++)
+			output[i] = (byte) Math.max(-127, Math.min(127, Math.round(values[i] * inverse)));
+	}
+
+	/**
+	 * Calculates the dot product of two byte vectors with int accumulation.
+	 *
+	 * @param a       the first vector
+	 * @param aOffset the offset of the first vector
+	 * @param b       the second vector
+	 * @param bOffset the offset of the second vector
+	 * @param length  the length of the vectors
+	 * @return the dot product
+	 */
+	static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+		int sum = 0;
+		for (int i = 0; i < length; i++)
+			sum += a[aOffset + i] * b[bOffset + i];
+
+		return sum;
+	}
+
+	/**
+	 * Gets the scale that maps a range of magnitudes to 127.
+	 *
+	 * @param range the largest magnitude
+	 * @return the scale
+	 */
+	static float scale(float range) {
+		return range > 0 ? range / 127 : 1;
+	}
+}
@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -42,7 +43,7 @@ public class Interpolation implements Layer {
 		dos.writeInt(outputWidth);
 	}
 
-	public void setDimensions(int dimensions[], UpdaterType updaterType) {
+	public void setDimensions(int dimensions[], UpdaterConfig updaterConfig) {
 		this.depth = dimensions[0];
 		this.height = dimensions[1];
 		this.width = dimensions[2];
@@ -56,6 +57,9 @@ public class Interpolation implements Layer {
 	public void setMode(Mode mode) {
 	}
 
+	public void setPrecision(Precision precision) {
+	}
+
 	public LayerType getType() {
 		return LayerType.INTERPOLATION;
 	}
@@ -135,11 +139,18 @@ public class Interpolation implements Layer {
 		return new int[]{depth, outputHeight, outputWidth};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		Interpolation replica = new Interpolation(outputHeight, outputWidth);
+		replica.setDimensions(new int[]{depth, height, width}, updaterConfig);
+
+		return replica;
+	}
+
 	public float[][][] getParameters() {
 		return new float[0][][];
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	/**
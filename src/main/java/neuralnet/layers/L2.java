@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -23,7 +24,7 @@ public class L2 implements Layer {
 		epsilon = dis.readFloat();
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		inputSize = dimensions[0];
 		for (int i = 1; i < dimensions.length; i++)
 			inputSize *= dimensions[i];
@@ -32,6 +33,9 @@ public class L2 implements Layer {
 	public void setMode(Layer.Mode mode) {
 	}
 
+	public void setPrecision(Precision precision) {
+	}
+
 	public LayerType getType() {
 		return LayerType.L2;
 	}
@@ -72,11 +76,18 @@ public class L2 implements Layer {
 		return new int[]{inputSize};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		L2 replica = new L2(epsilon);
+		replica.setDimensions(new int[]{inputSize}, updaterConfig);
+
+		return replica;
+	}
+
 	public float[][][] getParameters() {
 		return new float[0][][];
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	public void export(DataOutputStream dos) throws IOException {
@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -33,7 +34,7 @@ public class LRN implements Layer {
 		beta = dis.readFloat();
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length < 3)
 			throw new IllegalArgumentException();
 
@@ -45,6 +46,9 @@ public class LRN implements Layer {
 	public void setMode(Layer.Mode mode) {
 	}
 
+	public void setPrecision(Precision precision) {
+	}
+
 	public LayerType getType() {
 		return LayerType.LRN;
 	}
@@ -87,11 +91,18 @@ public class LRN implements Layer {
 		return new int[]{depth, height, width};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		LRN replica = new LRN(n, k, alpha, beta);
+		replica.setDimensions(new int[]{depth, height, width}, updaterConfig);
+
+		return replica;
+	}
+
 	public float[][][] getParameters() {
 		return new float[0][][];
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	public void export(DataOutputStream dos) throws IOException {
@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -14,6 +15,19 @@ public interface Layer {
 	 */
 	void setMode(Mode mode);
 
+	/**
+	 * Resets the state that recurrent layers carry between timesteps, so that the next forward propagation starts a new sequence.
+	 */
+	default void resetState() {
+	}
+
+	/**
+	 * Sets the precision that activations are kept in between forward and back propagation, and that deltas are rounded to.
+	 *
+	 * @param precision the precision, or null for single precision
+	 */
+	void setPrecision(Precision precision);
+
 	/**
 	 * Gets the LayerType. This can be used when exporting.
 	 * @return the layer type
@@ -24,9 +38,18 @@ public interface Layer {
 	 * Sets the dimensions, given a previous layers dimensions.
 	 *
 	 * @param dimensions the dimensions of the previous layer
-	 * @param updaterType the updater type
+	 * @param updaterConfig the updater config
+	 */
+	void setDimensions(int[] dimensions, UpdaterConfig updaterConfig);
+
+	/**
+	 * Creates a replica of the layer for asynchronous training. The replica shares parameters with the layer, but has its own gradients,
+	 * updaters and stored activations.
+	 *
+	 * @param updaterConfig the updater config
+	 * @return the replica
 	 */
-	void setDimensions(int[] dimensions, UpdaterType updaterType);
+	Layer replicate(UpdaterConfig updaterConfig);
 
 	/**
 	 * Retrieves the parameters and gradients for gradient checking.
@@ -66,9 +89,9 @@ public interface Layer {
 	/**
 	 * Updates a layer's parameters.
 	 *
-	 * @param length the length of the parameters
+	 * @param length the amount the summed gradients are divided by, which is the batch size, scaled by any gradient clipping
 	 */
-	void update(int length);
+	void update(float length);
 
 	/**
 	 * Gets the output dimensions, for initializing following layers.
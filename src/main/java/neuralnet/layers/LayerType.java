@@ -1,6 +1,6 @@
 package neuralnet.layers;
 
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -11,34 +11,35 @@ import java.io.IOException;
  */
 public enum LayerType {
 	// TODO: R-CNN, GAN, INCEPTION-RESNET
-	CONVOLUTIONAL, DROPOUT, FEED_FORWARD, POOLING, GRU, INCEPTION, RESIDUAL, PSP, BATCH_NORMALIZATION, INTERPOLATION, LRN, L2;
+	CONVOLUTIONAL, DROPOUT, FEED_FORWARD, POOLING, GRU, INCEPTION, RESIDUAL, PSP, BATCH_NORMALIZATION, INTERPOLATION, LRN, L2,
+	QUANTIZED_DENSE, QUANTIZED_CONVOLUTIONAL;
 
 	/**
 	 * Imports a layer given an input stream.
 	 *
 	 * @param dis the input stream
-	 * @param updaterType the updater type
+	 * @param updaterConfig the updater config
 	 * @return the layer
 	 * @throws IOException if there is an error reading from the file
 	 */
-	public static Layer fromString(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	public static Layer fromString(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		switch (valueOf(dis.readUTF())) {
 			case CONVOLUTIONAL:
-				return new Convolutional(dis, updaterType);
+				return new Convolutional(dis, updaterConfig);
 			case DROPOUT:
 				return new Dropout(dis);
 			case FEED_FORWARD:
-				return new Dense(dis, updaterType);
+				return new Dense(dis, updaterConfig);
 			case POOLING:
 				return new Pooling(dis);
 			case GRU:
-				return new GRU(dis, updaterType);
+				return new GRU(dis, updaterConfig);
 			case INCEPTION:
-				return new Inception(dis, updaterType);
+				return new Inception(dis, updaterConfig);
 			case RESIDUAL:
-				return new Residual(dis, updaterType);
+				return new Residual(dis, updaterConfig);
 			case PSP:
-				return new PSP(dis, updaterType);
+				return new PSP(dis, updaterConfig);
 			case BATCH_NORMALIZATION:
 				return new BatchNormalization(dis);
 			case INTERPOLATION:
@@ -47,6 +48,10 @@ public enum LayerType {
 				return new LRN(dis);
 			case L2:
 				return new L2(dis);
+			case QUANTIZED_DENSE:
+				return new QuantizedDense(dis);
+			case QUANTIZED_CONVOLUTIONAL:
+				return new QuantizedConvolutional(dis);
 			default:
 				throw new IllegalArgumentException();
 		}
@@ -1,9 +1,10 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -34,7 +35,7 @@ public class PSP implements Layer {
 		this.initializer = initializer;
 	}
 
-	PSP(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	PSP(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		depth = dis.readInt();
 		height = dis.readInt();
 		width = dis.readInt();
@@ -44,10 +45,28 @@ public class PSP implements Layer {
 		branch3 = new Layer[4];
 		branch4 = new Layer[4];
 		for (int i = 0; i < 4; i++) {
-			branch1[i] = LayerType.fromString(dis, updaterType);
-			branch2[i] = LayerType.fromString(dis, updaterType);
-			branch3[i] = LayerType.fromString(dis, updaterType);
-			branch4[i] = LayerType.fromString(dis, updaterType);
+			branch1[i] = LayerType.fromString(dis, updaterConfig);
+			branch2[i] = LayerType.fromString(dis, updaterConfig);
+			branch3[i] = LayerType.fromString(dis, updaterConfig);
+			branch4[i] = LayerType.fromString(dis, updaterConfig);
+		}
+	}
+
+	private PSP(PSP psp, UpdaterConfig updaterConfig) {
+		depth = psp.depth;
+		height = psp.height;
+		width = psp.width;
+		initializer = psp.initializer;
+
+		branch1 = new Layer[4];
+		branch2 = new Layer[4];
+		branch3 = new Layer[4];
+		branch4 = new Layer[4];
+		for (int i = 0; i < 4; i++) {
+			branch1[i] = psp.branch1[i].replicate(updaterConfig);
+			branch2[i] = psp.branch2[i].replicate(updaterConfig);
+			branch3[i] = psp.branch3[i].replicate(updaterConfig);
+			branch4[i] = psp.branch4[i].replicate(updaterConfig);
 		}
 	}
 
@@ -68,7 +87,7 @@ public class PSP implements Layer {
 		}
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length != 3)
 			throw new IllegalArgumentException("Invalid input dimensions.");
 
@@ -108,16 +127,16 @@ public class PSP implements Layer {
 			new Interpolation.Builder().outputHeight(height).outputWidth(width).build()
 		};
 
-		branch1[0].setDimensions(dimensions, updaterType);
-		branch2[0].setDimensions(dimensions, updaterType);
-		branch3[0].setDimensions(dimensions, updaterType);
-		branch4[0].setDimensions(dimensions, updaterType);
+		branch1[0].setDimensions(dimensions, updaterConfig);
+		branch2[0].setDimensions(dimensions, updaterConfig);
+		branch3[0].setDimensions(dimensions, updaterConfig);
+		branch4[0].setDimensions(dimensions, updaterConfig);
 
 		for (int i = 1; i < 4; i++) {
-			branch1[i].setDimensions(branch1[i - 1].getOutputDimensions(), updaterType);
-			branch2[i].setDimensions(branch2[i - 1].getOutputDimensions(), updaterType);
-			branch3[i].setDimensions(branch3[i - 1].getOutputDimensions(), updaterType);
-			branch4[i].setDimensions(branch4[i - 1].getOutputDimensions(), updaterType);
+			branch1[i].setDimensions(branch1[i - 1].getOutputDimensions(), updaterConfig);
+			branch2[i].setDimensions(branch2[i - 1].getOutputDimensions(), updaterConfig);
+			branch3[i].setDimensions(branch3[i - 1].getOutputDimensions(), updaterConfig);
+			branch4[i].setDimensions(branch4[i - 1].getOutputDimensions(), updaterConfig);
 		}
 	}
 
@@ -130,6 +149,15 @@ public class PSP implements Layer {
 		}
 	}
 
+	public void setPrecision(Precision precision) {
+		for (int i = 0; i < 4; i++) {
+			branch1[i].setPrecision(precision);
+			branch2[i].setPrecision(precision);
+			branch3[i].setPrecision(precision);
+			branch4[i].setPrecision(precision);
+		}
+	}
+
 	public LayerType getType() {
 		return LayerType.PSP;
 	}
@@ -194,6 +222,10 @@ public class PSP implements Layer {
 		return new int[]{2048 + depth, height, width};
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new PSP(this, updaterConfig);
+	}
+
 	public float[][][] getParameters() {
 		int length = 0;
 
@@ -229,7 +261,7 @@ public class PSP implements Layer {
 		return parameters;
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	/**
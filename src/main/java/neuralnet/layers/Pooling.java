@@ -1,7 +1,8 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.costs.Cost;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -58,7 +59,10 @@ public class Pooling implements Layer {
 	public void setMode(Layer.Mode mode) {
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setPrecision(Precision precision) {
+	}
+
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length < 3)
 			throw new IllegalArgumentException("Invalid input dimensions.");
 
@@ -219,11 +223,18 @@ public class Pooling implements Layer {
 		return Convolutional.removePad(input, batchSize, pad, depth, padWidth, inputHeight, inputWidth);
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		Pooling replica = new Pooling(mode, downsampleSize, downsampleStride, pad);
+		replica.setDimensions(new int[]{depth, inputHeight, inputWidth}, updaterConfig);
+
+		return replica;
+	}
+
 	public float[][][] getParameters() {
 		return new float[0][][];
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 	}
 
 	public int[] getOutputDimensions() {
@@ -0,0 +1,180 @@
+package neuralnet.layers;
+
+import neuralnet.Precision;
+import neuralnet.Tensors;
+import neuralnet.activations.Activation;
+import neuralnet.costs.Cost;
+import neuralnet.optimizers.UpdaterConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+/**
+ * Quantized convolutional layers hold int8 filters with a scale for each filter, and run on the CPU with int arithmetic. Inputs are
+ * quantized with a range calibrated on sample data. They are for inference only, and cannot be trained.
+ */
+public class QuantizedConvolutional implements Layer {
+	private int depth, inputHeight, inputWidth;
+	private int padHeight, padWidth, pad;
+	private int outputHeight, outputWidth, stride;
+	private int filterAmount, filterSize, dilation;
+	private Activation activation;
+	private float inputScale;
+	private byte[] filters;
+	private float[] scales, biases;
+
+	QuantizedConvolutional(int depth, int inputHeight, int inputWidth, int pad, int stride, int filterAmount, int filterSize, int dilation,
+						   Activation activation, float[] filters, float[] biases, float inputRange) {
+		this.depth = depth;
+		this.inputHeight = inputHeight;
+		this.inputWidth = inputWidth;
+		this.pad = pad;
+		this.stride = stride;
+		this.filterAmount = filterAmount;
+		this.filterSize = filterSize;
+		this.dilation = dilation;
+		this.activation = activation;
+		this.biases = biases.clone();
+
+		init();
+
+		inputScale = Int8.scale(inputRange);
+
+		// each filter has its own scale
+		this.filters = new byte[filters.length];
+		scales = Int8.quantizeChannels(filters, filterAmount, this.filters);
+	}
+
+	/**
+	 * Initializes a quantized convolutional layer from a file.
+	 *
+	 * @param dis the input stream
+	 */
+	QuantizedConvolutional(DataInputStream dis) throws IOException {
+		depth = dis.readInt();
+		inputHeight = dis.readInt();
+		inputWidth = dis.readInt();
+		pad = dis.readInt();
+		stride = dis.readInt();
+		filterAmount = dis.readInt();
+		filterSize = dis.readInt();
+		dilation = dis.readInt();
+
+		init();
+
+		activation = Activation.fromString(dis);
+		inputScale = dis.readFloat();
+
+		scales = new float[filterAmount];
+		biases = new float[filterAmount];
+		Tensors.read(dis, filterAmount, scales, biases);
+
+		filters = new byte[filterAmount * depth * filterSize * filterSize];
+		dis.readFully(filters);
+	}
+
+	private void init() {
+		int dilatedSize = (filterSize - 1) * dilation + 1;
+
+		padHeight = inputHeight + 2 * pad;
+		padWidth = inputWidth + 2 * pad;
+
+		outputHeight = (padHeight - dilatedSize) / stride + 1;
+		outputWidth = (padWidth - dilatedSize) / stride + 1;
+	}
+
+	public void setMode(Mode mode) {
+	}
+
+	public void setPrecision(Precision precision) {
+	}
+
+	public LayerType getType() {
+		return LayerType.QUANTIZED_CONVOLUTIONAL;
+	}
+
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
+		if (dimensions.length < 3 || dimensions[0] != depth || dimensions[1] != inputHeight || dimensions[2] != inputWidth)
+			throw new IllegalArgumentException("Invalid input dimensions.");
+	}
+
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		// nothing is stored between calls
+		return this;
+	}
+
+	public float[][][] getParameters() {
+		return new float[0][][];
+	}
+
+	public float[] forward(float[] input, int batchSize) {
+		input = Convolutional.pad(input, batchSize, pad, depth, padHeight, padWidth, inputHeight, inputWidth);
+		byte[] quantized = Int8.quantize(input, inputScale);
+
+		int patchSize = depth * filterSize * filterSize;
+		float[] output = new float[batchSize * filterAmount * outputHeight * outputWidth];
+
+		// each row of outputs gathers its patches, with the same layout as the filters
+		IntStream.range(0, batchSize * outputHeight).parallel().forEach(row -> {
+			int b = row / outputHeight;
+			int i = row % outputHeight;
+			int h = i * stride;
+
+			byte[] patch = new byte[patchSize];
+			for (int j = 0, w = 0; j < outputWidth; j++, w += stride) {
+				int index = 0;
+				for (int k = 0; k < depth; k++) {
+					for (int m = 0; m < filterSize; m++) {
+						for (int n = 0; n < filterSize; n++) {
+							patch[index++] = quantized[(w + n * dilation) + padWidth * ((h + m * dilation) + padHeight * (k + depth * b))];
+						}
+					}
+				}
+
+				for (int f = 0; f < filterAmount; f++) {
+					int sum = Int8.dot(patch, 0, filters, patchSize * f, patchSize);
+					output[j + outputWidth * (i + outputHeight * (f + filterAmount * b))] = sum * inputScale * scales[f] + biases[f];
+				}
+			}
+		});
+
+		activation.activation(output, batchSize);
+
+		return output;
+	}
+
+	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
+		throw new UnsupportedOperationException("Quantized layers are for inference only.");
+	}
+
+	public float[] backward(float[] previousDelta, boolean calculateDelta) {
+		throw new UnsupportedOperationException("Quantized layers are for inference only.");
+	}
+
+	public void update(float length) {
+	}
+
+	public int[] getOutputDimensions() {
+		return new int[]{filterAmount, outputHeight, outputWidth};
+	}
+
+	public void export(DataOutputStream dos) throws IOException {
+		dos.writeInt(depth);
+		dos.writeInt(inputHeight);
+		dos.writeInt(inputWidth);
+		dos.writeInt(pad);
+		dos.writeInt(stride);
+		dos.writeInt(filterAmount);
+		dos.writeInt(filterSize);
+		dos.writeInt(dilation);
+
+		activation.export(dos);
+		dos.writeFloat(inputScale);
+
+		Tensors.write(dos, filterAmount, scales, biases);
+
+		dos.write(filters);
+	}
+}
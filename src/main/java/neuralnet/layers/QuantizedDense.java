@@ -0,0 +1,137 @@
+package neuralnet.layers;
+
+import neuralnet.Precision;
+import neuralnet.Tensors;
+import neuralnet.activations.Activation;
+import neuralnet.costs.Cost;
+import neuralnet.optimizers.UpdaterConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+/**
+ * Quantized Dense layers hold int8 weights with a scale for each output, and run on the CPU with int arithmetic. Inputs are
+ * quantized with a range calibrated on sample data. They are for inference only, and cannot be trained.
+ */
+public class QuantizedDense implements Layer {
+	private int inputSize, outputSize;
+	private float temperature;
+	private Activation activation;
+	private float inputScale;
+	private byte[] weights;
+	private float[] scales, biases;
+
+	QuantizedDense(int inputSize, int outputSize, float temperature, Activation activation, float[] weights, float[] biases,
+				   float inputRange) {
+		this.inputSize = inputSize;
+		this.outputSize = outputSize;
+		this.temperature = temperature;
+		this.activation = activation;
+		this.biases = biases.clone();
+
+		inputScale = Int8.scale(inputRange);
+
+		// each output is a row of weights, with its own scale
+		this.weights = new byte[weights.length];
+		scales = Int8.quantizeChannels(weights, outputSize, this.weights);
+	}
+
+	/**
+	 * Initializes a quantized Dense layer from a file.
+	 *
+	 * @param dis the input stream
+	 */
+	QuantizedDense(DataInputStream dis) throws IOException {
+		inputSize = dis.readInt();
+		outputSize = dis.readInt();
+		temperature = dis.readFloat();
+		activation = Activation.fromString(dis);
+		inputScale = dis.readFloat();
+
+		scales = new float[outputSize];
+		biases = new float[outputSize];
+		Tensors.read(dis, outputSize, scales, biases);
+
+		weights = new byte[outputSize * inputSize];
+		dis.readFully(weights);
+	}
+
+	public void setMode(Mode mode) {
+	}
+
+	public void setPrecision(Precision precision) {
+	}
+
+	public LayerType getType() {
+		return LayerType.QUANTIZED_DENSE;
+	}
+
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
+		int inputSize = dimensions[0];
+		for (int i = 1; i < dimensions.length; i++)
+			inputSize *= dimensions[i];
+
+		if (inputSize != this.inputSize)
+			throw new IllegalArgumentException("Invalid input dimensions.");
+	}
+
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		// nothing is stored between calls
+		return this;
+	}
+
+	public float[][][] getParameters() {
+		return new float[0][][];
+	}
+
+	public float[] forward(float[] input, int batchSize) {
+		byte[] quantized = Int8.quantize(input, inputScale);
+		float[] output = new float[batchSize * outputSize];
+
+		IntStream.range(0, batchSize).parallel().forEach(b -> {
+			for (int i = 0; i < outputSize; i++) {
+				int sum = Int8.dot(quantized, inputSize * b, weights, inputSize * i, inputSize);
+				output[i + outputSize * b] = sum * inputScale * scales[i] + biases[i];
+			}
+		});
+
+		activation.activation(output, batchSize);
+
+		if (temperature != 1) {
+			for (int i = 0; i < batchSize; i++) {
+				output[i] /= temperature;
+			}
+		}
+
+		return output;
+	}
+
+	public float[] backward(Cost cost, float[] target, boolean calculateDelta) {
+		throw new UnsupportedOperationException("Quantized layers are for inference only.");
+	}
+
+	public float[] backward(float[] previousDelta, boolean calculateDelta) {
+		throw new UnsupportedOperationException("Quantized layers are for inference only.");
+	}
+
+	public void update(float length) {
+	}
+
+	public int[] getOutputDimensions() {
+		return new int[]{outputSize};
+	}
+
+	public void export(DataOutputStream dos) throws IOException {
+		dos.writeInt(inputSize);
+		dos.writeInt(outputSize);
+		dos.writeFloat(temperature);
+		activation.export(dos);
+		dos.writeFloat(inputScale);
+
+		Tensors.write(dos, outputSize, scales, biases);
+
+		dos.write(weights);
+	}
+}
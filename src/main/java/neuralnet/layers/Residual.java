@@ -1,9 +1,10 @@
 package neuralnet.layers;
 
+import neuralnet.Precision;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.Cost;
 import neuralnet.initializers.Initializer;
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -35,7 +36,7 @@ public class Residual implements Layer {
 		this.initializer = initializer;
 	}
 
-	Residual(DataInputStream dis, UpdaterType updaterType) throws IOException {
+	Residual(DataInputStream dis, UpdaterConfig updaterConfig) throws IOException {
 		depth = dis.readInt();
 		height = dis.readInt();
 		width = dis.readInt();
@@ -45,12 +46,33 @@ public class Residual implements Layer {
 
 		branch1 = new Layer[dis.readInt()];
 		for (int i = 0; i < branch1.length; i++) {
-			branch1[i] = LayerType.fromString(dis, updaterType);
+			branch1[i] = LayerType.fromString(dis, updaterConfig);
 		}
 
 		branch2 = new Layer[dis.readInt()];
 		for (int i = 0; i < branch2.length; i++) {
-			branch2[i] = LayerType.fromString(dis, updaterType);
+			branch2[i] = LayerType.fromString(dis, updaterConfig);
+		}
+	}
+
+	private Residual(Residual residual, UpdaterConfig updaterConfig) {
+		depth = residual.depth;
+		height = residual.height;
+		width = residual.width;
+		pad = residual.pad;
+		stride = residual.stride;
+		filterAmount = residual.filterAmount;
+		outputDepth = residual.outputDepth;
+		initializer = residual.initializer;
+
+		branch1 = new Layer[residual.branch1.length];
+		for (int i = 0; i < branch1.length; i++) {
+			branch1[i] = residual.branch1[i].replicate(updaterConfig);
+		}
+
+		branch2 = new Layer[residual.branch2.length];
+		for (int i = 0; i < branch2.length; i++) {
+			branch2[i] = residual.branch2[i].replicate(updaterConfig);
 		}
 	}
 
@@ -75,7 +97,7 @@ public class Residual implements Layer {
 		}
 	}
 
-	public void setDimensions(int[] dimensions, UpdaterType updaterType) {
+	public void setDimensions(int[] dimensions, UpdaterConfig updaterConfig) {
 		if (dimensions.length != 3)
 			throw new IllegalArgumentException("Invalid input dimensions.");
 
@@ -106,17 +128,17 @@ public class Residual implements Layer {
 				new BatchNormalization.Builder().initializer(initializer).build(),
 			};
 
-			branch1[0].setDimensions(dimensions, updaterType);
+			branch1[0].setDimensions(dimensions, updaterConfig);
 			for (int i = 1; i < branch1.length; i++) {
-				branch1[i].setDimensions(branch1[i - 1].getOutputDimensions(), updaterType);
+				branch1[i].setDimensions(branch1[i - 1].getOutputDimensions(), updaterConfig);
 			}
 		} else {
 			branch1 = new Layer[0];
 		}
 
-		branch2[0].setDimensions(dimensions, updaterType);
+		branch2[0].setDimensions(dimensions, updaterConfig);
 		for (int i = 1; i < branch2.length; i++) {
-			branch2[i].setDimensions(branch2[i - 1].getOutputDimensions(), updaterType);
+			branch2[i].setDimensions(branch2[i - 1].getOutputDimensions(), updaterConfig);
 		}
 	}
 
@@ -130,6 +152,16 @@ public class Residual implements Layer {
 		}
 	}
 
+	public void setPrecision(Precision precision) {
+		for (Layer layer : branch1) {
+			layer.setPrecision(precision);
+		}
+
+		for (Layer layer : branch2) {
+			layer.setPrecision(precision);
+		}
+	}
+
 	public LayerType getType() {
 		return LayerType.RESIDUAL;
 	}
@@ -170,6 +202,10 @@ public class Residual implements Layer {
 		return branch2[branch2.length - 1].getOutputDimensions();
 	}
 
+	public Layer replicate(UpdaterConfig updaterConfig) {
+		return new Residual(this, updaterConfig);
+	}
+
 	public float[][][] getParameters() {
 		int length = 0;
 
@@ -203,7 +239,7 @@ public class Residual implements Layer {
 		return parameters;
 	}
 
-	public void update(int length) {
+	public void update(float length) {
 		for (Layer layer : branch1) {
 			layer.update(length);
 		}
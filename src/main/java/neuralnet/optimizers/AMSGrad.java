@@ -1,12 +1,11 @@
 package neuralnet.optimizers;
 
-import neuralnet.GPU;
+import neuralnet.Sweep;
+import neuralnet.Tensors;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.util.Objects;
-import java.util.stream.IntStream;
 
 /**
  * The AMSGrad updater stores <code>m</code> and <code>v</code> as parameters for each layer. Although other updaters may outperform
@@ -15,19 +14,15 @@ import java.util.stream.IntStream;
  */
 @SuppressWarnings("unused")
 public class AMSGrad implements Updater {
-	private static float beta1 = 0.9f;
-	private static float beta2 = 0.999f;
-	private static float epsilon = 1e-8f;
-	private static float partial = 0.125f;
-	private static float lambda = 0.001f;
-	private static float learningRate = 0.0001f;
+	private final UpdaterConfig config;
 
 	private boolean decay;
 	private int t;
 	private int size;
 	private float[] m, v;
 
-	AMSGrad(int size, boolean decay) {
+	AMSGrad(UpdaterConfig config, int size, boolean decay) {
+		this.config = config;
 		this.size = size;
 		this.decay = decay;
 
@@ -35,7 +30,9 @@ public class AMSGrad implements Updater {
 		v = new float[size];
 	}
 
-	AMSGrad(DataInputStream dis) throws IOException {
+	AMSGrad(UpdaterConfig config, DataInputStream dis) throws IOException {
+		this.config = config;
+
 		t = dis.readInt();
 		size = dis.readInt();
 		decay = dis.readBoolean();
@@ -43,81 +40,44 @@ public class AMSGrad implements Updater {
 		m = new float[size];
 		v = new float[size];
 
-		for (int i = 0; i < size; i++) {
-			m[i] = dis.readFloat();
-			v[i] = dis.readFloat();
-		}
-	}
-
-	/**
-	 * Initializes parameters. Parameters are ordered as follows: <code>beta1, beta2, epsilon, partial</code>
-	 *
-	 * @param parameters the parameters
-	 */
-	@SuppressWarnings("WeakerAccess")
-	public static void init(float[] parameters) {
-		Objects.requireNonNull(parameters);
-		if (parameters.length != 4)
-			throw new IllegalArgumentException("Invalid parameters.");
-
-		AMSGrad.beta1 = parameters[0];
-		AMSGrad.beta2 = parameters[1];
-		AMSGrad.epsilon = parameters[2];
-		AMSGrad.partial = parameters[3];
-	}
-
-	/**
-	 * The learning rate reduces updates overshooting.
-	 *
-	 * @param learningRate the learning rate
-	 */
-	static void setLearningRate(float learningRate) {
-		AMSGrad.learningRate = learningRate;
-	}
-
-	static void setLambda(float lambda) {
-		AMSGrad.lambda = lambda;
+		Tensors.read(dis, size, m, v);
 	}
 
-	/**
-	 * Imports parameters from an input stream.
-	 *
-	 * @param dis the input stream
-	 */
-	static void importParameters(DataInputStream dis) throws IOException {
-		beta1 = dis.readFloat();
-		beta2 = dis.readFloat();
-		epsilon = dis.readFloat();
-		partial = dis.readFloat();
-	}
-
-	/**
-	 * Exports parameters to an output stream.
-	 *
-	 * @param dos the output stream
-	 */
-	static void exportParameters(DataOutputStream dos) throws IOException {
-		dos.writeFloat(beta1);
-		dos.writeFloat(beta2);
-		dos.writeFloat(epsilon);
-		dos.writeFloat(partial);
-	}
-
-	public void update(float[] parameters, float[] gradient, int scale) {
+	public void update(float[] parameters, float[] gradient, float scale) {
 		t++;
-		double corrected = learningRate * Math.sqrt(1 - Math.pow(beta2, t)) / Math.sqrt(1 - Math.pow(beta1, t));
+
+		float beta1 = config.getBeta1(), beta2 = config.getBeta2(), epsilon = config.getEpsilon();
+		float corrected = (float) (config.getLearningRate() * Math.sqrt(1 - Math.pow(beta2, t)) / Math.sqrt(1 - Math.pow(beta1, t)));
 
 		float b1 = 1 - beta1;
 		float b2 = 1 - beta2;
-
-		m = GPU.saxpy(size, beta1, m, GPU.sscal(size, b1 / scale, gradient));
-
-		IntStream.range(0, size).parallel().forEach(i -> {
-			v[i] = Math.max(v[i], v[i] * beta2 + b2 * (float) Math.pow(gradient[i] / scale, 2));
-			if (decay)
-				parameters[i] -= corrected * (m[i] / Math.pow(Math.sqrt(v[i]) + epsilon, partial * 2) + lambda * parameters[i]);
-			else
-				parameters[i] -= corrected * (m[i] / Math.pow(Math.sqrt(v[i]) + epsilon, partial * 2));
+		float inverseScale = 1.0f / scale;
+		float lambda = decay ? config.getDecay() : 0;
+
+		// the common exponents, including that of the default partial of 0.125, avoid the cost of pow
+		double exponent = config.getPartial() * 2;
+		boolean linear = exponent == 1;
+		boolean root = exponent == 0.5;
+		boolean quarter = exponent == 0.25;
+
+		// moments and parameters are updated in a single pass, without allocating
+		Sweep.run(size, (start, end) -> {
+			for (int i = start; i < end; i++) {
+				float g = gradient[i] * inverseScale;
+
+				float m = this.m[i] = beta1 * this.m[i] + b1 * g;
+				float v = this.v[i] = Math.max(this.v[i], beta2 * this.v[i] + b2 * g * g);
+
+				float denominator = (float) Math.sqrt(v) + epsilon;
+				if (root)
+					denominator = (float) Math.sqrt(denominator);
+				else if (quarter)
+					denominator = (float) Math.sqrt(Math.sqrt(denominator));
+				else if (!linear)
+					denominator = (float) Math.pow(denominator, exponent);
+
+				parameters[i] -= corrected * (m / denominator + lambda * parameters[i]);
+			}
 		});
 	}
 
@@ -126,9 +86,6 @@ public class AMSGrad implements Updater {
 		dos.writeInt(size);
 		dos.writeBoolean(decay);
 
-		for (int i = 0; i < size; i++) {
-			dos.writeFloat(m[i]);
-			dos.writeFloat(v[i]);
-		}
+		Tensors.write(dos, size, m, v);
 	}
 }
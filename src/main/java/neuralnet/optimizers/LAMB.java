@@ -0,0 +1,101 @@
+package neuralnet.optimizers;
+
+import neuralnet.Sweep;
+import neuralnet.Tensors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The LAMB updater is ADAM with decoupled weight decay, where the update of each tensor is scaled by the trust ratio of the norm of the
+ * parameters to the norm of the update. Keeping each update proportional to the parameters it changes keeps training stable with very
+ * large batches. Tensors without weight decay, such as biases, are not scaled.
+ */
+@SuppressWarnings("unused")
+public class LAMB implements Updater {
+	private final UpdaterConfig config;
+
+	private boolean decay;
+	private int t;
+	private int size;
+	private float[] m, v;
+
+	LAMB(UpdaterConfig config, int size, boolean decay) {
+		this.config = config;
+		this.size = size;
+		this.decay = decay;
+
+		m = new float[size];
+		v = new float[size];
+	}
+
+	LAMB(UpdaterConfig config, DataInputStream dis) throws IOException {
+		this.config = config;
+
+		t = dis.readInt();
+		size = dis.readInt();
+		decay = dis.readBoolean();
+
+		m = new float[size];
+		v = new float[size];
+
+		Tensors.read(dis, size, m, v);
+	}
+
+	public void update(float[] parameters, float[] gradient, float scale) {
+		t++;
+
+		float beta1 = config.getBeta1(), beta2 = config.getBeta2(), epsilon = config.getEpsilon();
+		float b1 = 1 - beta1;
+		float b2 = 1 - beta2;
+		float inverseScale = 1.0f / scale;
+		float lambda = decay ? config.getDecay() : 0;
+
+		float mt = 1 / (1 - (float) Math.pow(beta1, t));
+		float vt = 1 / (float) Math.sqrt(1 - Math.pow(beta2, t));
+
+		// moments are updated while the norms of the parameters and update are reduced in parallel
+		double[] norms = Sweep.sum(size, 2, (start, end, sums) -> {
+			double parameterNorm = 0, updateNorm = 0;
+			for (int i = start; i < end; i++) {
+				float g = gradient[i] * inverseScale;
+
+				float m = this.m[i] = beta1 * this.m[i] + b1 * g;
+				float v = this.v[i] = beta2 * this.v[i] + b2 * g * g;
+
+				float r = m * mt / ((float) Math.sqrt(v) * vt + epsilon) + lambda * parameters[i];
+
+				parameterNorm += parameters[i] * parameters[i];
+				updateNorm += r * r;
+			}
+
+			sums[0] += parameterNorm;
+			sums[1] += updateNorm;
+		});
+
+		double parameterNorm = Math.sqrt(norms[0]);
+		double updateNorm = Math.sqrt(norms[1]);
+
+		// untrained or converged tensors fall back to the global learning rate
+		float step = config.getLearningRate();
+		if (decay && parameterNorm > 0 && updateNorm > 0)
+			step *= (float) (parameterNorm / updateNorm);
+
+		float rate = step;
+		Sweep.run(size, (start, end) -> {
+			for (int i = start; i < end; i++) {
+				float r = m[i] * mt / ((float) Math.sqrt(v[i]) * vt + epsilon) + lambda * parameters[i];
+				parameters[i] -= rate * r;
+			}
+		});
+	}
+
+	public void export(DataOutputStream dos) throws IOException {
+		dos.writeInt(t);
+		dos.writeInt(size);
+		dos.writeBoolean(decay);
+
+		Tensors.write(dos, size, m, v);
+	}
+}
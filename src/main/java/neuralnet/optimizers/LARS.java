@@ -0,0 +1,85 @@
+package neuralnet.optimizers;
+
+import neuralnet.Sweep;
+import neuralnet.Tensors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The LARS updater is momentum SGD with a learning rate for each tensor, scaled by the trust ratio of the norm of the parameters to the
+ * norm of the gradient. Keeping each update proportional to the parameters it changes keeps training stable with very large batches.
+ * Tensors without weight decay, such as biases, are not scaled.
+ */
+@SuppressWarnings("unused")
+public class LARS implements Updater {
+	private final UpdaterConfig config;
+
+	private boolean decay;
+	private int size;
+	private float[] v;
+
+	LARS(UpdaterConfig config, int size, boolean decay) {
+		this.config = config;
+		this.size = size;
+		this.decay = decay;
+
+		v = new float[size];
+	}
+
+	LARS(UpdaterConfig config, DataInputStream dis) throws IOException {
+		this.config = config;
+
+		size = dis.readInt();
+		decay = dis.readBoolean();
+
+		v = new float[size];
+		Tensors.read(dis, 1, v);
+	}
+
+	public void update(float[] parameters, float[] gradient, float scale) {
+		float momentum = config.getBeta1();
+		float inverseScale = 1.0f / scale;
+		float lambda = decay ? config.getDecay() : 0;
+
+		float rate = config.getLearningRate();
+		if (decay) {
+			// norms of the parameters and gradient, reduced in parallel
+			double[] norms = Sweep.sum(size, 2, (start, end, sums) -> {
+				double parameterNorm = 0, gradientNorm = 0;
+				for (int i = start; i < end; i++) {
+					float g = gradient[i] * inverseScale;
+
+					parameterNorm += parameters[i] * parameters[i];
+					gradientNorm += g * g;
+				}
+
+				sums[0] += parameterNorm;
+				sums[1] += gradientNorm;
+			});
+
+			double parameterNorm = Math.sqrt(norms[0]);
+			double gradientNorm = Math.sqrt(norms[1]);
+
+			// untrained or converged tensors fall back to the global learning rate
+			if (parameterNorm > 0 && gradientNorm > 0)
+				rate *= (float) (config.getTrust() * parameterNorm / (gradientNorm + lambda * parameterNorm + config.getEpsilon()));
+		}
+
+		float step = rate;
+		Sweep.run(size, (start, end) -> {
+			for (int i = start; i < end; i++) {
+				float v = this.v[i] = momentum * this.v[i] + step * (gradient[i] * inverseScale + lambda * parameters[i]);
+				parameters[i] -= v;
+			}
+		});
+	}
+
+	public void export(DataOutputStream dos) throws IOException {
+		dos.writeInt(size);
+		dos.writeBoolean(decay);
+
+		Tensors.write(dos, 1, v);
+	}
+}
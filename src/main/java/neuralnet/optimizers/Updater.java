@@ -12,9 +12,9 @@ public interface Updater {
 	 *
 	 * @param parameters the parameters
 	 * @param gradient the parameter gradient
-	 * @param scale the scale
+	 * @param scale the amount the gradient is divided by
 	 */
-	void update(float[] parameters, float[] gradient, int scale);
+	void update(float[] parameters, float[] gradient, float scale);
 
 	/**
 	 * Export the parameter specific parameters to an output stream.
@@ -0,0 +1,215 @@
+package neuralnet.optimizers;
+
+import neuralnet.ModelInputStream;
+import neuralnet.ModelOutputStream;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Updater configs hold the type and hyper-parameters of the updaters of a single model. Every updater of a model reads its
+ * hyper-parameters from the model's config, so schedules adjust the learning rate of one model without affecting other models trained
+ * in the same JVM.
+ */
+public class UpdaterConfig {
+	private final UpdaterType updaterType;
+
+	private volatile float learningRate = 0.0001f;
+	private volatile float beta1 = 0.9f;
+	private volatile float beta2 = 0.999f;
+	private volatile float epsilon = 1e-8f;
+	private volatile float partial = 0.125f;
+	private volatile float lambda = 0.001f;
+	private volatile float trust = 0.001f;
+
+	/**
+	 * Creates a config with the default hyper-parameters of an UpdaterType.
+	 *
+	 * @param updaterType the UpdaterType
+	 */
+	public UpdaterConfig(UpdaterType updaterType) {
+		Objects.requireNonNull(updaterType);
+
+		this.updaterType = updaterType;
+	}
+
+	/**
+	 * Imports a config from an input stream.
+	 *
+	 * @param dis the input stream
+	 * @return the config
+	 * @throws IOException if there is an error reading from the file
+	 */
+	public static UpdaterConfig fromString(DataInputStream dis) throws IOException {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.valueOf(dis.readUTF()));
+
+		config.beta1 = dis.readFloat();
+		config.beta2 = dis.readFloat();
+		config.epsilon = dis.readFloat();
+
+		switch (config.updaterType) {
+			case ADAM:
+				config.learningRate = dis.readFloat();
+				break;
+			case AMSGRAD:
+				config.partial = dis.readFloat();
+				break;
+			case LARS:
+				config.trust = dis.readFloat();
+				config.learningRate = dis.readFloat();
+				break;
+			case LAMB:
+				config.learningRate = dis.readFloat();
+				break;
+			default:
+		}
+
+		return config;
+	}
+
+	public UpdaterType getUpdaterType() {
+		return updaterType;
+	}
+
+	/**
+	 * The learning rate reduces updates overshooting.
+	 *
+	 * @param learningRate the learning rate
+	 */
+	public void init(float learningRate) {
+		this.learningRate = learningRate;
+	}
+
+	/**
+	 * Initializes hyper-parameters. Parameters are ordered as follows: <code>beta1, beta2, epsilon</code> for ADAM and LAMB,
+	 * <code>beta1, beta2, epsilon, partial</code> for AMSGrad, and <code>momentum, trust, epsilon</code> for LARS.
+	 *
+	 * @param parameters the parameters
+	 */
+	public void init(float... parameters) {
+		Objects.requireNonNull(parameters);
+		if (parameters.length != (updaterType == UpdaterType.AMSGRAD ? 4 : 3))
+			throw new IllegalArgumentException("Invalid parameters.");
+
+		beta1 = parameters[0];
+		epsilon = parameters[2];
+
+		if (updaterType == UpdaterType.LARS)
+			trust = parameters[1];
+		else
+			beta2 = parameters[1];
+
+		if (updaterType == UpdaterType.AMSGRAD)
+			partial = parameters[3];
+	}
+
+	/**
+	 * Sets the weight decay, for updaters that support it.
+	 *
+	 * @param decay the decay
+	 */
+	public void setDecay(float decay) {
+		lambda = decay;
+	}
+
+	public float getLearningRate() {
+		return learningRate;
+	}
+
+	public float getBeta1() {
+		return beta1;
+	}
+
+	public float getBeta2() {
+		return beta2;
+	}
+
+	public float getEpsilon() {
+		return epsilon;
+	}
+
+	public float getPartial() {
+		return partial;
+	}
+
+	public float getDecay() {
+		return lambda;
+	}
+
+	public float getTrust() {
+		return trust;
+	}
+
+	/**
+	 * Creates an updater reading its hyper-parameters from this config.
+	 *
+	 * @param size  the size of the parameters
+	 * @param decay whether to apply weight decay
+	 * @return the updater
+	 */
+	public Updater create(int size, boolean decay) {
+		return updaterType.create(this, size, decay);
+	}
+
+	/**
+	 * Creates an updater reading its hyper-parameters from this config, then imports its state given an input stream.
+	 *
+	 * @param dis the input stream
+	 * @return the updater
+	 * @throws IOException if there is an error reading from the file
+	 */
+	public Updater create(DataInputStream dis) throws IOException {
+		// models exported for inference have no updater state
+		if (ModelInputStream.isInference(dis))
+			return null;
+
+		return updaterType.create(this, dis);
+	}
+
+	/**
+	 * Exports the state of an updater, unless the model is exported for inference.
+	 *
+	 * @param updater the updater
+	 * @param dos     the output stream
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public static void exportState(Updater updater, DataOutputStream dos) throws IOException {
+		if (dos instanceof ModelOutputStream && ((ModelOutputStream) dos).isInference())
+			return;
+
+		updater.export(dos);
+	}
+
+	/**
+	 * Exports the config.
+	 *
+	 * @param dos the output stream
+	 * @throws IOException if there is an error writing to the file
+	 */
+	public void export(DataOutputStream dos) throws IOException {
+		dos.writeUTF(updaterType.toString());
+
+		dos.writeFloat(beta1);
+		dos.writeFloat(beta2);
+		dos.writeFloat(epsilon);
+
+		switch (updaterType) {
+			case ADAM:
+				dos.writeFloat(learningRate);
+				break;
+			case AMSGRAD:
+				dos.writeFloat(partial);
+				break;
+			case LARS:
+				dos.writeFloat(trust);
+				dos.writeFloat(learningRate);
+				break;
+			case LAMB:
+				dos.writeFloat(learningRate);
+				break;
+			default:
+		}
+	}
+}
@@ -1,9 +1,13 @@
 package neuralnet.schedules;
 
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class CosineRestart implements Schedule {
-	private UpdaterType updaterType;
+	private UpdaterConfig updaterConfig;
 
 	private float max, min, decay;
 	private int restartInterval, restartMultiplier, warmup, keyAmount;
@@ -19,12 +23,15 @@ public class CosineRestart implements Schedule {
 		this.warmup = warmup;
 	}
 
-	public void init(UpdaterType updaterType, int batchSize, int keyAmount) {
-		this.updaterType = updaterType;
+	public void init(UpdaterConfig updaterConfig, int batchSize, int keyAmount) {
+		if (keyAmount <= 0)
+			throw new IllegalArgumentException("Cosine restarts require a dataset of known size.");
+
+		this.updaterConfig = updaterConfig;
 		this.keyAmount = keyAmount;
 
-		updaterType.setDecay(decay * (float) Math.sqrt((float) batchSize / (keyAmount * restartInterval)));
-		updaterType.init(max);
+		updaterConfig.setDecay(decay * (float) Math.sqrt((float) batchSize / (keyAmount * restartInterval)));
+		updaterConfig.init(max);
 	}
 
 	public void increment(int s) {
@@ -36,18 +43,28 @@ public class CosineRestart implements Schedule {
 			current = 0;
 	}
 
+	public void exportState(DataOutputStream dos) throws IOException {
+		dos.writeInt(current);
+		dos.writeInt(restartInterval);
+	}
+
+	public void importState(DataInputStream dis) throws IOException {
+		current = dis.readInt();
+		restartInterval = dis.readInt();
+	}
+
 	public void step() {
 		if (current < warmup) {
-			updaterType.init((max / warmup) * ((float) current / keyAmount));
+			updaterConfig.init((max / warmup) * ((float) current / keyAmount));
 		} else if ((current / keyAmount) == restartInterval) {
 			System.out.println("Restarting");
 
 			current = 0;
 			restartInterval *= restartMultiplier;
 
-			updaterType.init(max);
+			updaterConfig.init(max);
 		} else {
-			updaterType.init(min + 0.5f * (max - min) * (1 + (float) Math.cos(((float) current / keyAmount) * Math.PI / restartInterval)));
+			updaterConfig.init(min + 0.5f * (max - min) * (1 + (float) Math.cos(((float) current / keyAmount) * Math.PI / restartInterval)));
 		}
 	}
 }
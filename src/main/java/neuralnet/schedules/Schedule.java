@@ -1,13 +1,42 @@
 package neuralnet.schedules;
 
-import neuralnet.optimizers.UpdaterType;
+import neuralnet.optimizers.UpdaterConfig;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public interface Schedule {
-	void init(UpdaterType updaterType, int batchSize, int keyAmount);
+	/**
+	 * Initializes the schedule before training.
+	 *
+	 * @param updaterConfig the updater config
+	 * @param batchSize     the batch size
+	 * @param keyAmount     the amount of samples in an epoch, or -1 if it is unknown
+	 */
+	void init(UpdaterConfig updaterConfig, int batchSize, int keyAmount);
 
 	void step();
 
 	void increment(int s);
 
 	void endEpoch(int i);
+
+	/**
+	 * Exports the state of the schedule, for training checkpoints.
+	 *
+	 * @param dos the output stream
+	 * @throws IOException if there is an error writing to the file
+	 */
+	default void exportState(DataOutputStream dos) throws IOException {
+	}
+
+	/**
+	 * Imports the state of the schedule when training is resumed, after the schedule is initialized.
+	 *
+	 * @param dis the input stream
+	 * @throws IOException if there is an error reading from the file
+	 */
+	default void importState(DataInputStream dis) throws IOException {
+	}
 }
@@ -0,0 +1,90 @@
+package neuralnet;
+
+import neuralnet.optimizers.Updater;
+import neuralnet.optimizers.UpdaterConfig;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperparameterSearchTest {
+	// minimizes the sum of squares, checking that no other trial changes the learning rate
+	private static float trial(float learningRate) {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.ADAM);
+		config.init(learningRate);
+
+		float[] parameters = new float[1000];
+		Arrays.fill(parameters, 1);
+
+		Updater updater = config.create(parameters.length, false);
+		float[] gradient = new float[parameters.length];
+
+		for (int i = 0; i < 200; i++) {
+			for (int j = 0; j < parameters.length; j++)
+				gradient[j] = 2 * parameters[j];
+
+			updater.update(parameters, gradient, 1);
+
+			if (config.getLearningRate() != learningRate)
+				throw new IllegalStateException("Learning rate changed by another trial.");
+		}
+
+		float loss = 0;
+		for (float parameter : parameters)
+			loss += parameter * parameter;
+
+		return loss / parameters.length;
+	}
+
+	@Test
+	void run() {
+		List<Float> candidates = Arrays.asList(0.0001f, 0.001f, 0.01f, 0.1f, 1f, 0.01f);
+		List<HyperparameterSearch.Result<Float>> results = HyperparameterSearch.run(candidates, HyperparameterSearchTest::trial, 4);
+
+		// duplicate candidates each keep their result, in the order of the candidates
+		assertEquals(6, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(candidates.get(i), results.get(i).getCandidate());
+			assertTrue(!Float.isNaN(results.get(i).getScore()));
+		}
+		assertEquals(results.get(2).getScore(), results.get(5).getScore());
+
+		// small learning rates barely move in 200 steps
+		assertTrue(results.get(0).getScore() > results.get(2).getScore());
+		assertTrue(HyperparameterSearch.best(results) >= 0.01f);
+	}
+
+	@Test
+	void interrupted() {
+		List<Float> candidates = Arrays.asList(0.001f, 0.01f, 0.1f);
+
+		// trials that would take long, and are cancelled once the search is interrupted
+		Function<Float, Float> trial = candidate -> {
+			try {
+				Thread.sleep(60000);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+
+			return candidate;
+		};
+
+		Thread.currentThread().interrupt();
+		List<HyperparameterSearch.Result<Float>> results = HyperparameterSearch.run(candidates, trial, 1);
+		assertTrue(Thread.interrupted());
+
+		// every candidate still has a result, as a failed trial
+		assertEquals(3, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(candidates.get(i), results.get(i).getCandidate());
+			assertTrue(Float.isNaN(results.get(i).getScore()));
+		}
+		assertNull(HyperparameterSearch.best(results));
+	}
+}
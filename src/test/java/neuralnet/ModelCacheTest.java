@@ -0,0 +1,173 @@
+package neuralnet;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.costs.CostType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.layers.Dense;
+import neuralnet.layers.GRU;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ModelCacheTest {
+	private static Model createModel() {
+		return new Model.Builder()
+			.add(new GRU.Builder().hiddenSize(8).initializer(new HeInitialization()).build())
+			.inputDimensions(4).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+	}
+
+	private static Model get(ModelCache cache, String key) throws IOException {
+		try (ModelPool.Lease lease = cache.get(key)) {
+			return lease.getModel();
+		}
+	}
+
+	@Test
+	void evict() throws IOException {
+		long bytes = createModel().getParameterBytes();
+		ModelCache cache = new ModelCache(2 * bytes, key -> createModel());
+
+		Model a = get(cache, "a");
+		get(cache, "b");
+		assertSame(a, get(cache, "a"));
+
+		// b is the least recently used
+		get(cache, "c");
+		assertEquals(2, cache.size());
+		assertEquals(2 * bytes, cache.getBytes());
+		assertSame(a, get(cache, "a"));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+
+		cache.invalidate("a");
+		assertNotSame(a, get(cache, "a"));
+	}
+
+	@Test
+	void concurrent() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+
+		ModelCache cache = new ModelCache(Long.MAX_VALUE, key -> {
+			loads.incrementAndGet();
+
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+
+			return createModel();
+		});
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Model>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++)
+				futures.add(executor.submit(() -> get(cache, "model")));
+
+			Thread.sleep(100);
+			latch.countDown();
+
+			Model model = futures.get(0).get();
+			for (Future<Model> future : futures)
+				assertSame(model, future.get());
+
+			assertEquals(1, loads.get());
+			assertEquals(1, cache.getLoads());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void invalidateLoading() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+
+		ModelCache cache = new ModelCache(Long.MAX_VALUE, key -> {
+			if (latch.getCount() > 0) {
+				loading.countDown();
+
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+
+			return createModel();
+		});
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Model> future = executor.submit(() -> get(cache, "model"));
+
+			// the model is replaced while its old version is loading
+			loading.await();
+			cache.invalidate("model");
+			latch.countDown();
+
+			Model stale = future.get();
+			assertEquals(0, cache.size());
+
+			Model model = get(cache, "model");
+			assertNotSame(stale, model);
+			assertSame(model, get(cache, "model"));
+			assertEquals(2, cache.getLoads());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void forward() throws Exception {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(4).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(8).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		float[] input = new float[4 * 8];
+		for (int i = 0; i < input.length; i++)
+			input[i] = i / (float) input.length;
+
+		float[] expected = model.forward(input, 4);
+		long bytes = model.getParameterBytes();
+
+		// the copy is imported for inference, so it holds no gradients
+		ModelCache cache = new ModelCache(Long.MAX_VALUE, key -> model, 0, 2);
+		try (ModelPool.Lease lease = cache.get("model")) {
+			assertSame(model, lease.getModel());
+			assertEquals(bytes + bytes / 2, cache.getBytes());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			// dense layers share their weight buffer between calls, which fails if requests on a replica overlap
+			List<Future<float[]>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				futures.add(executor.submit(() -> {
+					try (ModelPool.Lease lease = cache.get("model")) {
+						return lease.getModel().forward(input, 4);
+					}
+				}));
+			}
+
+			for (Future<float[]> future : futures)
+				assertArrayEquals(expected, future.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package neuralnet;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.costs.CostType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.layers.BatchNormalization;
+import neuralnet.layers.Convolutional;
+import neuralnet.layers.Dense;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelFileTest {
+	private static Model createModel() {
+		Model model = new Model.Builder()
+			.add(new Convolutional.Builder().filterAmount(4).filterSize(3).pad(1).stride(1).activationType(ActivationType.RELU)
+				.initializer(new HeInitialization()).build())
+			.add(new BatchNormalization.Builder().initializer(new HeInitialization()).build())
+			.add(new Dense.Builder().outputSize(10).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(2, 8, 8).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		Random random = new Random(0);
+		for (int i = 0; i < model.getLayerAmount(); i++) {
+			for (float[][] parameters : model.getLayer(i).getParameters()) {
+				for (int j = 0; j < parameters[0].length; j++)
+					parameters[0][j] = (float) random.nextGaussian();
+			}
+		}
+
+		return model;
+	}
+
+	private static byte[] export(Model model) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ModelOutputStream dos = new ModelOutputStream(bos, false)) {
+			model.export(dos);
+		}
+
+		return bos.toByteArray();
+	}
+
+	@Test
+	void mapped() throws IOException {
+		Model model = createModel();
+		File file = File.createTempFile("mapped", ".model");
+
+		try {
+			ModelFile.write(file.getPath(), model);
+			assertEquals(0, file.length() % 64);
+
+			ModelFile modelFile = ModelFile.open(file.getPath());
+
+			// the filters follow the moments of both updaters and the biases
+			float[] filters = model.getLayer(0).getParameters()[0][0];
+			FloatBuffer tensor = modelFile.getTensor(5);
+			float[] mapped = new float[tensor.remaining()];
+			tensor.get(mapped);
+			assertArrayEquals(filters, mapped);
+
+			assertArrayEquals(export(model), export(modelFile.load()));
+
+			// loaders of exported models open model files by their magic, while streams can't read them
+			assertArrayEquals(export(model), export(Model.load(file.getPath(), 0)));
+			try (ModelInputStream dis = new ModelInputStream(new FileInputStream(file))) {
+				IOException e = assertThrows(IOException.class, () -> new Model(dis));
+				assertTrue(e.getMessage().contains("ModelFile"));
+			}
+		} finally {
+			if (!file.delete())
+				file.deleteOnExit();
+		}
+	}
+
+	@Test
+	void compressed() throws IOException {
+		Model model = createModel();
+		byte[] expected = export(model);
+
+		for (boolean shuffle : new boolean[]{false, true}) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (DataOutputStream dos = new DataOutputStream(bos)) {
+				CompressedModel.write(dos, model, false, shuffle);
+			}
+
+			// zeroed updater moments compress to almost nothing
+			assertTrue(bos.size() < expected.length);
+			assertArrayEquals(expected, export(new Model(new ByteArrayInputStream(bos.toByteArray()))));
+		}
+	}
+}
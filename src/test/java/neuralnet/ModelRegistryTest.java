@@ -0,0 +1,111 @@
+package neuralnet;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.costs.CostType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.layers.Dense;
+import neuralnet.layers.GRU;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ModelRegistryTest {
+	private static Model createModel() {
+		return new Model.Builder()
+			.add(new GRU.Builder().hiddenSize(8).initializer(new HeInitialization()).build())
+			.inputDimensions(4).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+	}
+
+	@Test
+	void swap() {
+		// warm-up is skipped, as forward propagation needs a GPU
+		try (ModelRegistry registry = new ModelRegistry(0)) {
+			assertThrows(IllegalStateException.class, registry::acquire);
+
+			Model first = createModel();
+			Model second = createModel();
+			long bytes = first.getParameterBytes();
+
+			assertEquals(1, registry.swap(first));
+
+			ModelRegistry.Lease lease = registry.acquire();
+			assertEquals(2, registry.swap(second));
+
+			// the request in flight keeps the old version
+			assertSame(first, lease.getModel());
+			assertEquals(2, registry.getVersionAmount());
+			assertEquals(2 * bytes, registry.getMemoryBytes());
+
+			lease.close();
+			assertEquals(1, registry.getVersionAmount());
+			assertEquals(bytes, registry.getMemoryBytes());
+			assertThrows(IllegalStateException.class, lease::getModel);
+
+			try (ModelRegistry.Lease current = registry.acquire()) {
+				assertSame(second, current.getModel());
+				assertEquals(2, current.getVersion());
+			}
+		}
+	}
+
+	@Test
+	void concurrent() throws InterruptedException, ExecutionException, TimeoutException {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(4).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(8).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		float[] input = new float[4 * 8];
+		for (int i = 0; i < input.length; i++)
+			input[i] = i / (float) input.length;
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try (ModelRegistry registry = new ModelRegistry(0, 2)) {
+			float[] expected = model.forward(input, 4);
+			long bytes = model.getParameterBytes();
+
+			// the copy is imported for inference, so it holds no gradients
+			registry.swap(model);
+			assertEquals(bytes + bytes / 2, registry.getMemoryBytes());
+
+			// two requests run at once on their own replicas, while a third waits for one of them
+			Future<?> waiting;
+			try (ModelRegistry.Lease first = registry.acquire(); ModelRegistry.Lease second = registry.acquire()) {
+				assertNotSame(first.getModel(), second.getModel());
+
+				waiting = executor.submit(() -> registry.acquire().close());
+				assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+			}
+			waiting.get(10, TimeUnit.SECONDS);
+
+			// dense layers share their weight buffer between calls, which fails if requests on a replica overlap
+			List<Future<float[]>> futures = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				futures.add(executor.submit(() -> {
+					try (ModelRegistry.Lease lease = registry.acquire()) {
+						return lease.getModel().forward(input, 4);
+					}
+				}));
+			}
+
+			for (Future<float[]> future : futures)
+				assertArrayEquals(expected, future.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,421 @@
+package neuralnet;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.compressors.CompressorType;
+import neuralnet.costs.CostType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.data.ArrayDataset;
+import neuralnet.layers.Dense;
+import neuralnet.layers.GRU;
+import neuralnet.layers.Layer;
+import neuralnet.optimizers.UpdaterType;
+import neuralnet.schedules.CosineRestart;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelTest {
+	private static Map<float[], float[]> createData(int amount) {
+		Map<float[], float[]> data = new HashMap<>();
+
+		// learning whether the first input is larger than the second
+		Random random = new Random(0);
+		for (int i = 0; i < amount; i++) {
+			float[] input = new float[]{random.nextFloat(), random.nextFloat()};
+			data.put(input, new float[]{input[0] > input[1] ? 1 : 0});
+		}
+
+		return data;
+	}
+
+	private static float evaluate(Model model, Map<float[], float[]> data) {
+		float[] inputs = new float[data.size() * 2];
+		float[] targets = new float[data.size()];
+
+		int b = 0;
+		for (Map.Entry<float[], float[]> entry : data.entrySet()) {
+			System.arraycopy(entry.getKey(), 0, inputs, b * 2, 2);
+			targets[b++] = entry.getValue()[0];
+		}
+
+		model.setMode(Layer.Mode.EVAL);
+
+		return CostType.MEAN_SQUARE_ERROR.cost(model.forward(inputs, data.size()), targets) / data.size();
+	}
+
+	@Test
+	void trainAsynchronous() {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(16).activation(ActivationType.RELU).initializer(new HeInitialization()).build())
+			.add(new Dense.Builder().outputSize(1).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(2).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		Map<float[], float[]> data = createData(512);
+		float before = evaluate(model, data);
+
+		model.getUpdaterConfig().init(0.01f);
+		model.trainAsynchronous(data, 16, 5, 4, 10, "src/test/resources/async-test.model");
+
+		float after = evaluate(model, data);
+		System.out.println(before + "\t" + after);
+
+		assertTrue(after < before);
+	}
+
+	@Test
+	void asynchronousCheckpoint() throws IOException {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(1).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(2).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		File file = File.createTempFile("async", ".model");
+		file.deleteOnExit();
+
+		// the checkpoint is taken before the second epoch
+		model.trainAsynchronous(createData(64), 16, 2, 2, 2, file.getPath());
+
+		Model imported = Model.load(file.getPath(), 0);
+		float[] parameters = new float[imported.getArena().size()];
+		imported.getArena().read(parameters);
+
+		// with the same parameters, the checkpoint differs from this model only by the updater moments of a replica
+		model.getArena().write(parameters);
+		assertFalse(Arrays.equals(export(model, false), export(imported, false)));
+	}
+
+	private static Model createRecurrent(float clipNorm) {
+		return createRecurrent(clipNorm, null);
+	}
+
+	private static Model createRecurrent(float clipNorm, Precision precision) {
+		return new Model.Builder()
+			.add(new GRU.Builder().hiddenSize(8).initializer(new HeInitialization()).build())
+			.inputDimensions(4).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).clipNorm(clipNorm).precision(precision)
+			.build();
+	}
+
+	@Test
+	void clipNorm() {
+		int length = 16;
+		float clipNorm = 0.5f;
+
+		Model clipped = createRecurrent(clipNorm);
+		Model expected = createRecurrent(0);
+
+		float[] parameters = new float[clipped.getArena().size()];
+		clipped.getArena().read(parameters);
+		expected.getArena().write(parameters);
+
+		// gradients far above the clip norm, and the same gradients already scaled down to it
+		Random random = new Random(0);
+		for (float[][] tensor : clipped.getLayer(0).getParameters()) {
+			for (int i = 0; i < tensor[1].length; i++)
+				tensor[1][i] = (float) random.nextGaussian() * 10;
+		}
+
+		float scale = (float) (clipNorm * length / clipped.getArena().gradientNorm());
+		float[][][] source = clipped.getLayer(0).getParameters();
+		float[][][] target = expected.getLayer(0).getParameters();
+		for (int j = 0; j < source.length; j++) {
+			for (int i = 0; i < source[j][1].length; i++)
+				target[j][1][i] = source[j][1][i] * scale;
+		}
+
+		clipped.update(length);
+		expected.update(length);
+
+		// Adam is invariant to the scale of its first step, so a second step below the clip norm tells the histories apart
+		source = clipped.getLayer(0).getParameters();
+		target = expected.getLayer(0).getParameters();
+		for (int j = 0; j < source.length; j++) {
+			for (int i = 0; i < source[j][1].length; i++)
+				source[j][1][i] = target[j][1][i] = (float) random.nextGaussian() * 1e-3f;
+		}
+
+		clipped.update(length);
+		expected.update(length);
+
+		float[] actual = new float[parameters.length];
+		clipped.getArena().read(actual);
+		expected.getArena().read(parameters);
+
+		assertArrayEquals(parameters, actual, 1e-6f);
+	}
+
+	@Test
+	void lossScale() {
+		int length = 16;
+
+		Model scaled = createRecurrent(0, Precision.FLOAT16);
+		Model expected = createRecurrent(0);
+
+		float[] parameters = new float[scaled.getArena().size()];
+		scaled.getArena().read(parameters);
+		expected.getArena().write(parameters);
+
+		// an overflowed gradient skips the step and halves the loss scale
+		float lossScale = scaled.getLossScale();
+		scaled.getLayer(0).getParameters()[0][1][0] = Float.POSITIVE_INFINITY;
+		scaled.update(length);
+
+		float[] actual = new float[parameters.length];
+		scaled.getArena().read(actual);
+
+		assertArrayEquals(parameters, actual);
+		assertEquals(lossScale / 2, scaled.getLossScale());
+		assertEquals(0, scaled.getArena().gradientNorm());
+
+		// gradients of the scaled loss are unscaled by the update
+		Random random = new Random(0);
+		float[][][] source = scaled.getLayer(0).getParameters();
+		float[][][] target = expected.getLayer(0).getParameters();
+		for (int j = 0; j < source.length; j++) {
+			for (int i = 0; i < source[j][1].length; i++) {
+				target[j][1][i] = (float) random.nextGaussian();
+				source[j][1][i] = target[j][1][i] * scaled.getLossScale();
+			}
+		}
+
+		scaled.update(length);
+		expected.update(length);
+
+		scaled.getArena().read(actual);
+		expected.getArena().read(parameters);
+
+		assertArrayEquals(parameters, actual, 1e-6f);
+	}
+
+	@Test
+	void lossScaleCompression() {
+		int length = 16;
+
+		Model scaled = createRecurrent(0, Precision.FLOAT16);
+		Model expected = createRecurrent(0);
+		scaled.setCompression(CompressorType.TOP_K, 0.1f);
+		expected.setCompression(CompressorType.TOP_K, 0.1f);
+
+		float[] parameters = new float[scaled.getArena().size()];
+		scaled.getArena().read(parameters);
+		expected.getArena().write(parameters);
+
+		// overflow between steps changes the loss scale, which the residuals of compressors must not depend on
+		Random random = new Random(0);
+		for (int step = 0; step < 3; step++) {
+			float[][][] source = scaled.getLayer(0).getParameters();
+			float[][][] target = expected.getLayer(0).getParameters();
+
+			if (step == 1) {
+				source[0][1][0] = Float.POSITIVE_INFINITY;
+				scaled.update(length);
+				continue;
+			}
+
+			for (int j = 0; j < source.length; j++) {
+				for (int i = 0; i < source[j][1].length; i++) {
+					target[j][1][i] = (float) random.nextGaussian();
+					source[j][1][i] = target[j][1][i] * scaled.getLossScale();
+				}
+			}
+
+			scaled.update(length);
+			expected.update(length);
+		}
+
+		float[] actual = new float[parameters.length];
+		scaled.getArena().read(actual);
+		expected.getArena().read(parameters);
+
+		for (float parameter : actual)
+			assertFalse(Float.isNaN(parameter));
+		assertArrayEquals(parameters, actual, 1e-6f);
+	}
+
+	private static byte[] export(Model model, boolean inference) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ModelOutputStream dos = new ModelOutputStream(bos, inference)) {
+			model.export(dos);
+		}
+
+		return bos.toByteArray();
+	}
+
+	@Test
+	void exportForInference() throws IOException {
+		Model model = createRecurrent(0);
+
+		byte[] full = export(model, false);
+		byte[] inference = export(model, true);
+
+		// Adam holds two values for each parameter
+		assertTrue(inference.length * 2.5 < full.length);
+
+		Model imported;
+		try (ModelInputStream dis = new ModelInputStream(new ByteArrayInputStream(inference))) {
+			imported = new Model(dis);
+		}
+
+		assertTrue(imported.isInference());
+		assertArrayEquals(inference, export(imported, true));
+
+		float[] parameters = new float[model.getArena().size()];
+		float[] actual = new float[parameters.length];
+		model.getArena().read(parameters);
+		imported.getArena().read(actual);
+		assertArrayEquals(parameters, actual);
+
+		// gradients are only allocated once the imported model is back propagated
+		assertEquals(model.getParameterBytes() / 2, imported.getParameterBytes());
+		imported.setMode(Layer.Mode.TRAIN);
+		imported.forward(new float[4], 1);
+		imported.backward(new float[8]);
+		assertEquals(model.getParameterBytes(), imported.getParameterBytes());
+
+		assertThrows(IllegalStateException.class, () -> imported.update(1));
+	}
+
+	private static Model createDense() {
+		return new Model.Builder()
+			.add(new Dense.Builder().outputSize(2).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(2).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+	}
+
+	private static ArrayDataset createDataset(long seed) {
+		Random random = new Random(0);
+		float[][] inputs = new float[16][];
+		float[][] targets = new float[16][];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = new float[]{random.nextFloat(), random.nextFloat()};
+			targets[i] = new float[]{inputs[i][1], inputs[i][0]};
+		}
+
+		return new ArrayDataset(inputs, targets, true, seed);
+	}
+
+	@Test
+	void resume() throws IOException {
+		File file = File.createTempFile("resume", ".model");
+
+		try {
+			// the learning rate restarts at the start of the second epoch, which doubles the restart interval
+			Model model = createDense();
+			model.setSchedule(new CosineRestart(0.1f, 0.01f, 0, 1, 2, 0));
+
+			// the last checkpoint is taken halfway through the second epoch
+			model.setCheckpointSteps(2);
+			model.train(createDataset(0), 4, 2, 100, file.getPath());
+
+			// the shuffling of the dataset is restored from the checkpoint, instead of its seed
+			Model resumed = Model.resume(file.getPath());
+			resumed.setSchedule(new CosineRestart(0.1f, 0.01f, 0, 1, 2, 0));
+			resumed.train(createDataset(1), 4, 2, 100, file.getPath());
+
+			float[] expected = new float[model.getArena().size()];
+			float[] actual = new float[expected.length];
+			model.getArena().read(expected);
+			resumed.getArena().read(actual);
+
+			assertArrayEquals(expected, actual);
+		} finally {
+			if (!file.delete())
+				file.deleteOnExit();
+		}
+	}
+
+	@Test
+	void warmUp() {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(3).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(5).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+
+		// quantized layers run on the CPU
+		Model quantized = new Model(model, new Layer[]{((Dense) model.getLayer(0)).quantize(4)});
+		quantized.warmUp(12);
+
+		assertEquals(6, quantized.forward(new float[10], 2).length);
+		assertThrows(IllegalArgumentException.class, () -> quantized.warmUp(0));
+	}
+
+	@Test
+	void importVersion1() throws IOException {
+		Model model = createRecurrent(0);
+
+		// version 1 models don't prefix layers with their length
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			dos.writeInt(0x4E4E4D53);
+			dos.writeInt(1);
+			dos.writeInt(0);
+			dos.writeInt(model.getLayerAmount());
+			dos.writeInt(4);
+
+			model.getUpdaterConfig().export(dos);
+			for (int i = 0; i < model.getLayerAmount(); i++) {
+				model.getLayer(i).getType().export(dos);
+				model.getLayer(i).export(dos);
+			}
+
+			model.getCost().getType().export(dos);
+		}
+
+		Model imported = new Model(new ByteArrayInputStream(bos.toByteArray()));
+		assertArrayEquals(export(model, false), export(imported, false));
+	}
+
+	@Test
+	void invalidLayerAmount() throws IOException {
+		// headerless files begin with the layer amount, which is checked before layers are allocated
+		for (int layerAmount : new int[]{-1, Integer.MAX_VALUE}) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (DataOutputStream dos = new DataOutputStream(bos)) {
+				dos.writeInt(layerAmount);
+			}
+
+			assertThrows(IOException.class, () -> new Model(new ModelInputStream(new ByteArrayInputStream(bos.toByteArray()))));
+		}
+	}
+
+	@Test
+	void checkpoint() throws IOException {
+		Model model = createRecurrent(0);
+		File file = File.createTempFile("checkpoint", ".model");
+
+		try {
+			float[] parameters = new float[model.getArena().size()];
+			model.getArena().read(parameters);
+
+			model.checkpoint(file.getPath());
+
+			// training continues while the checkpoint is written, without changing it
+			float[] updated = parameters.clone();
+			Arrays.fill(updated, 1);
+			model.getArena().write(updated);
+
+			model.awaitCheckpoint();
+			assertFalse(new File(file.getPath() + ".tmp").exists());
+
+			float[] actual = new float[parameters.length];
+			new Model(file.getPath()).getArena().read(actual);
+			assertArrayEquals(parameters, actual);
+
+			// checkpoints taken outside of training can't be resumed
+			assertThrows(IOException.class, () -> Model.resume(file.getPath()));
+		} finally {
+			if (!file.delete())
+				file.deleteOnExit();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package neuralnet;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.layers.Convolutional;
+import neuralnet.layers.Dense;
+import neuralnet.layers.Layer;
+import neuralnet.optimizers.UpdaterConfig;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParameterArenaTest {
+	private static Layer[] createLayers() {
+		Layer dense = new Dense.Builder().outputSize(300).activation(ActivationType.RELU).initializer(new HeInitialization()).build();
+		dense.setDimensions(new int[]{100}, new UpdaterConfig(UpdaterType.ADAM));
+
+		Layer convolutional = new Convolutional.Builder().activationType(ActivationType.RELU).filterAmount(4).filterSize(3)
+			.initializer(new HeInitialization()).pad(1).stride(1).build();
+		convolutional.setDimensions(new int[]{2, 8, 8}, new UpdaterConfig(UpdaterType.ADAM));
+
+		return new Layer[]{dense, convolutional};
+	}
+
+	@Test
+	void flat() {
+		Layer[] layers = createLayers();
+		ParameterArena arena = new ParameterArena(layers);
+
+		// a dense layer spanning several chunks, then a convolutional layer
+		assertEquals(300 * 100 + 300 + 4 * 2 * 3 * 3 + 4, arena.size());
+
+		float[] flat = new float[arena.size()];
+		arena.read(flat);
+		assertEquals(layers[0].getParameters()[0][0][12345], flat[12345]);
+		assertEquals(layers[1].getParameters()[1][0][3], flat[flat.length - 1]);
+
+		for (int i = 0; i < flat.length; i++)
+			flat[i] = i;
+		arena.write(flat);
+
+		assertEquals(30000, layers[0].getParameters()[1][0][0]);
+		assertEquals(flat.length - 1, layers[1].getParameters()[1][0][3]);
+	}
+
+	@Test
+	void gradients() {
+		Layer[] layers = createLayers();
+		ParameterArena arena = new ParameterArena(layers);
+
+		Random random = new Random(0);
+		double expected = 0;
+		for (float[][] parameters : layers[0].getParameters()) {
+			for (int i = 0; i < parameters[1].length; i++) {
+				parameters[1][i] = (float) random.nextGaussian();
+				expected += parameters[1][i] * parameters[1][i];
+			}
+		}
+
+		assertEquals(Math.sqrt(expected), arena.gradientNorm(), 1e-3);
+
+		arena.scaleGradients(0.5f);
+		assertEquals(Math.sqrt(expected) / 2, arena.gradientNorm(), 1e-3);
+
+		arena.zeroGradients();
+		assertEquals(0, arena.gradientNorm());
+	}
+}
@@ -0,0 +1,66 @@
+package neuralnet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrecisionTest {
+	@Test
+	void float16() {
+		Precision precision = Precision.FLOAT16;
+
+		assertEquals((short) 0x3c00, precision.encode(1));
+		assertEquals((short) 0xc000, precision.encode(-2));
+		assertEquals((short) 0x7bff, precision.encode(65504));
+		assertEquals(65504, precision.decode(precision.encode(65504)));
+
+		// overflow, subnormals and underflow
+		assertEquals(Float.POSITIVE_INFINITY, precision.decode(precision.encode(65520)));
+		assertEquals(Float.NEGATIVE_INFINITY, precision.decode(precision.encode(-1e6f)));
+		assertEquals(0x1p-24f, precision.decode(precision.encode(0x1p-24f)));
+		assertEquals(0, precision.decode(precision.encode(0x1p-26f)));
+		assertTrue(Float.isNaN(precision.decode(precision.encode(Float.NaN))));
+
+		// ties round to even, 1 + 2^-11 is halfway between 1 and 1 + 2^-10
+		assertEquals(1, precision.decode(precision.encode(1 + 0x1p-11f)));
+		assertEquals(1 + 0x1p-9f, precision.decode(precision.encode(1 + 0x1p-10f + 0x1p-11f)));
+	}
+
+	@Test
+	void bfloat16() {
+		Precision precision = Precision.BFLOAT16;
+
+		assertEquals((short) 0x3f80, precision.encode(1));
+		assertEquals(3e38f, precision.decode(precision.encode(3e38f)), 3e38f / 128);
+		assertEquals(1, precision.decode(precision.encode(1 + 0x1p-8f)));
+		assertEquals(1 + 0x1p-6f, precision.decode(precision.encode(1 + 0x1p-7f + 0x1p-8f)));
+		assertTrue(Float.isNaN(precision.decode(precision.encode(Float.NaN))));
+	}
+
+	@Test
+	void arrays() {
+		float[] values = new float[50000];
+		Random random = new Random(0);
+		for (int i = 0; i < values.length; i++)
+			values[i] = (float) random.nextGaussian();
+
+		for (Precision precision : Precision.values()) {
+			float[] decoded = precision.decode(precision.encode(values));
+
+			float[] rounded = values.clone();
+			precision.round(rounded);
+			assertArrayEquals(decoded, rounded);
+
+			// relative error is at most half a unit in the last place
+			float epsilon = precision == Precision.FLOAT16 ? 0x1p-11f : 0x1p-8f;
+			for (int i = 0; i < values.length; i++) {
+				if (Math.abs(values[i]) > 0x1p-14f)
+					assertTrue(Math.abs(decoded[i] - values[i]) <= Math.abs(values[i]) * epsilon);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package neuralnet.augmentations;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AugmentationTest {
+	// two channels of a 3x3 image
+	private static final int[] DIMENSIONS = new int[]{2, 3, 3};
+	private static final float[] IMAGE = new float[]{
+		1, 2, 3, 4, 5, 6, 7, 8, 9,
+		10, 11, 12, 13, 14, 15, 16, 17, 18
+	};
+
+	@Test
+	void crop() {
+		Augmentation crop = new RandomCrop(2, 2, 0);
+		assertArrayEquals(new int[]{2, 2, 2}, crop.getOutputDimensions(DIMENSIONS));
+
+		SplittableRandom random = new SplittableRandom(0);
+		for (int i = 0; i < 20; i++) {
+			float[] output = new float[8];
+			crop.apply(IMAGE, DIMENSIONS, output, random);
+
+			// crops are contiguous windows, in both channels
+			assertEquals(output[0] + 1, output[1]);
+			assertEquals(output[0] + 3, output[2]);
+			assertEquals(output[0] + 9, output[4]);
+		}
+	}
+
+	@Test
+	void cropPad() {
+		Augmentation crop = new RandomCrop(5, 5, 1);
+
+		float[] output = new float[50];
+		crop.apply(IMAGE, DIMENSIONS, output, new SplittableRandom(0));
+
+		// the only possible crop is the whole padded image
+		assertEquals(0, output[0]);
+		assertEquals(1, output[6]);
+		assertEquals(18, output[25 + 18]);
+
+		// with a pad larger than the crop, some crops only hold padding
+		crop = new RandomCrop(1, 1, 2);
+		SplittableRandom random = new SplittableRandom(0);
+
+		boolean padding = false;
+		for (int i = 0; i < 50; i++) {
+			output = new float[2];
+			crop.apply(IMAGE, DIMENSIONS, output, random);
+
+			if (output[0] == 0) {
+				assertEquals(0, output[1]);
+				padding = true;
+			} else {
+				assertEquals(output[0] + 9, output[1]);
+			}
+		}
+
+		assertTrue(padding);
+	}
+
+	@Test
+	void flip() {
+		Augmentation flip = new RandomFlip();
+
+		boolean flipped = false, unflipped = false;
+		SplittableRandom random = new SplittableRandom(0);
+		for (int i = 0; i < 20; i++) {
+			float[] output = new float[18];
+			flip.apply(IMAGE, DIMENSIONS, output, random);
+
+			if (output[0] == 3) {
+				assertArrayEquals(new float[]{3, 2, 1, 6, 5, 4}, Arrays.copyOf(output, 6));
+				flipped = true;
+			} else {
+				assertArrayEquals(IMAGE, output);
+				unflipped = true;
+			}
+		}
+
+		assertTrue(flipped && unflipped);
+	}
+
+	@Test
+	void brightness() {
+		Augmentation brightness = new Brightness(0.5f);
+
+		float[] output = new float[18];
+		brightness.apply(IMAGE, DIMENSIONS, output, new SplittableRandom(0));
+
+		float offset = output[0] - IMAGE[0];
+		assertTrue(Math.abs(offset) <= 0.5f);
+		for (int i = 0; i < 18; i++)
+			assertEquals(IMAGE[i] + offset, output[i], 1e-6f);
+	}
+}
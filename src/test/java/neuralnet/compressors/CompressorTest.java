@@ -0,0 +1,137 @@
+package neuralnet.compressors;
+
+import neuralnet.Model;
+import neuralnet.activations.ActivationType;
+import neuralnet.costs.CostType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.layers.Dense;
+import neuralnet.layers.Layer;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressorTest {
+	private static byte[] compress(Compressor compressor, float[] gradient) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			compressor.compress(gradient, dos);
+		}
+
+		return bos.toByteArray();
+	}
+
+	private static float[] decompress(Compressor compressor, byte[] bytes, int size) throws IOException {
+		float[] gradient = new float[size];
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			compressor.decompress(dis, gradient);
+		}
+
+		return gradient;
+	}
+
+	@Test
+	void select() {
+		float[] values = new float[]{3, 1, 4, 1, 5, 9, 2, 6, 5, 3};
+
+		assertEquals(9, TopK.select(values.clone(), 1));
+		assertEquals(5, TopK.select(values.clone(), 3));
+		assertEquals(1, TopK.select(values.clone(), 10));
+	}
+
+	@Test
+	void topK() throws IOException {
+		Compressor compressor = CompressorType.TOP_K.create(5, 0.4f);
+
+		byte[] bytes = compress(compressor, new float[]{0.1f, -3, 0.2f, 2, 0.5f});
+		assertArrayEquals(new float[]{0, -3, 0, 2, 0}, decompress(compressor, bytes, 5));
+		assertEquals(4 + 2 * 8, bytes.length);
+
+		// values that were not sent are accumulated until they are large enough
+		bytes = compress(compressor, new float[]{0.1f, 0, 0.2f, 0, 0.5f});
+		assertArrayEquals(new float[]{0, 0, 0.4f, 0, 1}, decompress(compressor, bytes, 5), 1e-6f);
+	}
+
+	@Test
+	void quantization() throws IOException {
+		int size = 10000;
+		Compressor compressor = CompressorType.QUANTIZATION.create(size, 1);
+
+		Random random = new Random(0);
+		float[] gradient = new float[size];
+		for (int i = 0; i < size; i++)
+			gradient[i] = (float) random.nextGaussian();
+
+		float max = 0;
+		for (float value : gradient)
+			max = Math.max(max, Math.abs(value));
+
+		byte[] bytes = compress(compressor, gradient);
+		assertEquals(4 + size, bytes.length);
+
+		float[] decompressed = decompress(compressor, bytes, size);
+
+		// each value is off by less than a single step, and the sum is preserved on average
+		double error = 0;
+		for (int i = 0; i < size; i++) {
+			assertTrue(Math.abs(decompressed[i] - gradient[i]) <= max / 127 + 1e-6f);
+			error += decompressed[i] - gradient[i];
+		}
+
+		assertTrue(Math.abs(error / size) < 1e-3);
+	}
+
+	@Test
+	void convergence() {
+		float[] input = new float[64 * 16];
+		float[] target = new float[64 * 4];
+
+		Random random = new Random(0);
+		for (int i = 0; i < input.length; i++)
+			input[i] = random.nextFloat();
+		for (int i = 0; i < target.length; i++)
+			target[i] = random.nextFloat();
+
+		float[] baseline = train(null, input, target);
+		float[] sparse = train(CompressorType.TOP_K, input, target);
+		float[] quantized = train(CompressorType.QUANTIZATION, input, target);
+
+		System.out.println("loss: " + baseline[1] + "\ttop-k: " + sparse[1] + "\tquantization: " + quantized[1]);
+
+		// compressed gradients should still converge, but may be slower
+		assertTrue(sparse[1] < sparse[0]);
+		assertTrue(quantized[1] < quantized[0]);
+	}
+
+	private static float[] train(CompressorType compressorType, float[] input, float[] target) {
+		Model model = new Model.Builder()
+			.add(new Dense.Builder().outputSize(32).activation(ActivationType.RELU).initializer(new HeInitialization()).build())
+			.add(new Dense.Builder().outputSize(4).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(16).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+		model.setCompression(compressorType, 0.1f);
+		model.getUpdaterConfig().init(0.01f);
+
+		model.setMode(Layer.Mode.TRAIN);
+
+		float[] loss = new float[2];
+		for (int i = 0; i < 200; i++) {
+			float[] output = model.forward(input, 64);
+			model.backward(target);
+			model.update(64);
+
+			loss[i == 0 ? 0 : 1] = CostType.MEAN_SQUARE_ERROR.cost(output, target) / 64;
+		}
+
+		if (compressorType != null) {
+			System.out.println(compressorType + ": " + model.getBytesExchanged() + "/" + model.getBytesUncompressed() + " bytes");
+			assertTrue(model.getBytesExchanged() < model.getBytesUncompressed() / 2);
+		}
+
+		return loss;
+	}
+}
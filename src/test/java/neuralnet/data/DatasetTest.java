@@ -0,0 +1,331 @@
+package neuralnet.data;
+
+import neuralnet.augmentations.Brightness;
+import neuralnet.augmentations.RandomCrop;
+import neuralnet.augmentations.RandomFlip;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class DatasetTest {
+	private static Dataset range(int amount) {
+		float[][] inputs = new float[amount][];
+		float[][] targets = new float[amount][];
+		for (int i = 0; i < amount; i++) {
+			inputs[i] = new float[]{i, -i};
+			targets[i] = new float[]{i};
+		}
+
+		return new ArrayDataset(inputs, targets, false);
+	}
+
+	@Test
+	void batches() {
+		Iterator<Batch> batches = new BatchIterator(range(5), 2);
+
+		Batch batch = batches.next();
+		assertEquals(2, batch.getSize());
+		assertArrayEquals(new float[]{0, 0, 1, -1}, batch.getInputs());
+		assertArrayEquals(new float[]{0, 1}, batch.getTargets());
+
+		batches.next();
+
+		// the last batch is smaller
+		batch = batches.next();
+		assertEquals(1, batch.getSize());
+		assertArrayEquals(new float[]{4, -4}, batch.getInputs());
+		assertFalse(batches.hasNext());
+	}
+
+	@Test
+	void resume() {
+		RandomAccessDataset dataset = new ArrayDataset(new float[][]{{0}, {1}, {2}, {3}, {4}}, new float[][]{{0}, {1}, {2}, {3}, {4}}, true);
+		int[] order = dataset.order();
+
+		// an epoch resumed after two batches continues in the same order
+		Iterator<Batch> batches = new BatchIterator(dataset, 2, order, 4);
+		assertArrayEquals(new float[]{order[4]}, batches.next().getTargets());
+		assertFalse(batches.hasNext());
+	}
+
+	private static List<Float> targets(Dataset dataset) {
+		List<Float> targets = new ArrayList<>();
+		for (float[][] sample : dataset)
+			targets.add(sample[1][0]);
+
+		return targets;
+	}
+
+	@Test
+	void state() throws IOException {
+		Dataset dataset = new ShuffleDataset(range(20), 5, 0);
+		targets(dataset);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			dataset.exportState(dos);
+		}
+
+		// a dataset with the imported state shuffles the next epoch the same way
+		Dataset resumed = new ShuffleDataset(range(20), 5, 1);
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			resumed.importState(dis);
+		}
+
+		assertEquals(targets(dataset), targets(resumed));
+	}
+
+	@Test
+	void prefetch() {
+		Set<float[]> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		try (PrefetchIterator batches = new PrefetchIterator(range(10), 2, 2)) {
+			for (int i = 0; i < 5; i++) {
+				Batch batch = batches.next();
+				assertArrayEquals(new float[]{2 * i, 2 * i + 1}, batch.getTargets());
+
+				buffers.add(batch.getInputs());
+			}
+
+			assertFalse(batches.hasNext());
+		}
+
+		// full batches are assembled into the same two buffers
+		assertEquals(2, buffers.size());
+
+		BatchSource failing = new BatchSource() {
+			public boolean hasNext() {
+				return true;
+			}
+
+			public Batch next(Batch reuse) {
+				throw new OutOfMemoryError();
+			}
+		};
+
+		// errors on the prefetch thread are rethrown instead of leaving the consumer waiting
+		try (PrefetchIterator batches = new PrefetchIterator(failing, 2)) {
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(OutOfMemoryError.class, batches::hasNext));
+		}
+	}
+
+	@Test
+	void duplicates() {
+		float[] input = new float[]{1, 2};
+
+		Dataset dataset = new ArrayDataset(new float[][]{input, input}, new float[][]{{0}, {1}}, true);
+		assertEquals(2, dataset.size());
+	}
+
+	@Test
+	void shuffle() {
+		Dataset dataset = new ShuffleDataset(range(100), 10, 0);
+
+		List<Float> order = new ArrayList<>();
+		for (float[][] sample : dataset)
+			order.add(sample[1][0]);
+
+		List<Float> sorted = new ArrayList<>(order);
+		Collections.sort(sorted);
+
+		// every sample is returned exactly once, but not in order
+		for (int i = 0; i < 100; i++)
+			assertEquals(i, sorted.get(i).intValue());
+		assertFalse(order.equals(sorted));
+
+		// seeds make the order reproducible
+		List<Float> repeated = new ArrayList<>();
+		for (float[][] sample : new ShuffleDataset(range(100), 10, 0))
+			repeated.add(sample[1][0]);
+		assertEquals(order, repeated);
+	}
+
+	@Test
+	void sharded() throws IOException {
+		File directory = Files.createTempDirectory("shards").toFile();
+		directory.deleteOnExit();
+
+		List<String> files = ShardedDataset.write(range(100), new File(directory, "shard").getPath(), 30);
+		assertEquals(4, files.size());
+		for (String file : files)
+			new File(file).deleteOnExit();
+
+		Dataset dataset = ShardedDataset.open(files, 2, 1, 8, 0);
+		assertEquals(100, dataset.size());
+
+		List<Float> first = new ArrayList<>();
+		for (float[][] sample : dataset)
+			first.add(sample[1][0]);
+
+		List<Float> second = new ArrayList<>();
+		for (float[][] sample : dataset)
+			second.add(sample[1][0]);
+
+		// every sample is returned once per epoch, in a different order each epoch
+		assertEquals(new HashSet<>(first), new HashSet<>(second));
+		assertEquals(100, new HashSet<>(first).size());
+		assertFalse(first.equals(second));
+
+		// seeds make the order reproducible
+		List<Float> repeated = new ArrayList<>();
+		for (float[][] sample : ShardedDataset.open(files, 2, 1, 8, 0))
+			repeated.add(sample[1][0]);
+		assertEquals(first, repeated);
+	}
+
+	@Test
+	void augmented() {
+		float[][] inputs = new float[64][];
+		float[][] targets = new float[64][];
+		for (int i = 0; i < 64; i++) {
+			inputs[i] = new float[3 * 8 * 8];
+			Arrays.fill(inputs[i], i);
+			targets[i] = new float[]{i};
+		}
+
+		Dataset images = new ArrayDataset(inputs, targets, false);
+		AugmentedDataset dataset = new AugmentedDataset(images, new int[]{3, 8, 8}, 4, 0,
+			new RandomCrop(6, 6, 0), new RandomFlip(), new Brightness(0.1f));
+		assertArrayEquals(new int[]{3, 6, 6}, dataset.getOutputDimensions());
+
+		int amount = 0;
+		try (PrefetchIterator batches = dataset.batches(16)) {
+			while (batches.hasNext()) {
+				Batch batch = batches.next();
+				assertEquals(16 * 3 * 6 * 6, batch.getInputs().length);
+
+				// every image is augmented by a worker, and stays with its target
+				for (int s = 0; s < batch.getSize(); s++) {
+					float target = batch.getTargets()[s];
+					assertEquals(target, batch.getInputs()[s * 108 + 50], 0.1f + 1e-6f);
+				}
+
+				amount += batch.getSize();
+			}
+		}
+
+		assertEquals(64, amount);
+
+		// closing stops the workers
+		dataset.close();
+		assertThrows(IllegalStateException.class, () -> dataset.batches(16));
+	}
+
+	@Test
+	void packed() {
+		List<float[][]> sequences = Arrays.asList(
+			new float[][]{{1}, {2}},
+			new float[][]{{3}, {4}, {5}, {6}},
+			new float[][]{{7}}
+		);
+		List<float[]> targets = Arrays.asList(new float[]{1, 2}, new float[]{3, 4, 5, 6}, new float[]{7});
+
+		PackedSequence packed = PackedSequence.pack(sequences, targets);
+		assertEquals(4, packed.getLength());
+		assertEquals(7, packed.getSteps());
+
+		// sequences are sorted by length, so finished sequences drop off the end of each timestep
+		assertArrayEquals(new int[]{3, 2, 1, 1}, packed.getBatchSizes());
+		assertArrayEquals(new float[]{3, 1, 7}, packed.getInputs()[0]);
+		assertArrayEquals(new float[]{4, 2}, packed.getInputs()[1]);
+		assertArrayEquals(new float[]{6}, packed.getTargets()[3]);
+
+		PackedSequence slice = packed.slice(1, 2);
+		assertArrayEquals(new int[]{2, 1}, slice.getBatchSizes());
+		assertEquals(3, slice.getSteps());
+	}
+
+	@Test
+	void file() throws IOException {
+		File file = File.createTempFile("dataset", ".bin");
+		file.deleteOnExit();
+
+		try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
+			for (float[][] sample : range(3))
+				FileDataset.write(sample[0], sample[1], dos);
+		}
+
+		Dataset dataset = new FileDataset(file.getPath(), 2, 1);
+		assertEquals(3, dataset.size());
+
+		// each epoch reads the file again
+		for (int epoch = 0; epoch < 2; epoch++) {
+			int i = 0;
+			for (float[][] sample : dataset) {
+				assertArrayEquals(new float[]{i, -i}, sample[0]);
+				assertArrayEquals(new float[]{i}, sample[1]);
+				i++;
+			}
+
+			assertEquals(3, i);
+		}
+	}
+
+	@Test
+	void mapped() throws IOException {
+		File file = File.createTempFile("dataset", ".bin");
+		file.deleteOnExit();
+
+		MappedDataset.write(file.getPath(), range(5), MappedDataset.Type.FLOAT32, MappedDataset.Type.UINT8);
+
+		MappedDataset dataset = MappedDataset.open(file.getPath());
+		dataset.setShuffle(false, 0);
+		assertEquals(5, dataset.size());
+		assertEquals(2, dataset.getInputSize());
+
+		int i = 0;
+		for (float[][] sample : dataset) {
+			assertArrayEquals(new float[]{i, -i}, sample[0]);
+			assertArrayEquals(new float[]{i}, sample[1]);
+			i++;
+		}
+
+		// batches are read straight from the file
+		dataset.setNormalization(0.5f, 1);
+		Batch batch = new BatchIterator(dataset, 2).next();
+		assertArrayEquals(new float[]{1, 1, 1.5f, 0.5f}, batch.getInputs());
+		assertArrayEquals(new float[]{0, 1}, batch.getTargets());
+	}
+
+	@Test
+	void idx() throws IOException {
+		File images = File.createTempFile("images", ".idx");
+		File labels = File.createTempFile("labels", ".idx");
+		images.deleteOnExit();
+		labels.deleteOnExit();
+
+		try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(images))) {
+			dos.writeInt(0x00000803);
+			dos.writeInt(3);
+			dos.writeInt(2);
+			dos.writeInt(2);
+			for (int i = 0; i < 12; i++)
+				dos.writeByte(i * 20);
+		}
+
+		try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(labels))) {
+			dos.writeInt(0x00000801);
+			dos.writeInt(3);
+			dos.write(new byte[]{7, 2, 1});
+		}
+
+		MappedDataset dataset = MappedDataset.openIdx(images.getPath(), labels.getPath());
+		dataset.setShuffle(false, 0);
+		assertEquals(3, dataset.size());
+		assertEquals(4, dataset.getInputSize());
+
+		// bytes are normalized to [0, 1]
+		Batch batch = new BatchIterator(dataset, 3).next();
+		assertEquals(200 / 255.0f, batch.getInputs()[10], 1e-6f);
+		assertArrayEquals(new float[]{7, 2, 1}, batch.getTargets());
+	}
+}
@@ -4,6 +4,7 @@ import neuralnet.Model;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.CostType;
 import neuralnet.initializers.HeInitialization;
+import neuralnet.optimizers.UpdaterConfig;
 import neuralnet.optimizers.UpdaterType;
 import org.junit.jupiter.api.Test;
 
@@ -76,7 +77,7 @@ class ConvolutionalTest {
 	void convolutionTest() {
 		Convolutional convolutional = new Convolutional.Builder().filterAmount(2).activationType(ActivationType.RELU).filterSize(3)
 			.initializer(new HeInitialization()).pad(2).stride(2).build();
-		convolutional.setDimensions(new int[]{1, 3, 3}, UpdaterType.ADAM);
+		convolutional.setDimensions(new int[]{1, 3, 3}, new UpdaterConfig(UpdaterType.ADAM));
 		float[] input = new float[]{
 			2, 1, 0,
 			2, 0, 1,
@@ -117,7 +118,7 @@ class ConvolutionalTest {
 	void dilationTest() {
 		Convolutional convolutional = new Convolutional.Builder().filterAmount(2).activationType(ActivationType.RELU).filterSize(5)
 			.initializer(new HeInitialization()).pad(2).stride(2).build();
-		convolutional.setDimensions(new int[]{2, 3, 3}, UpdaterType.ADAM);
+		convolutional.setDimensions(new int[]{2, 3, 3}, new UpdaterConfig(UpdaterType.ADAM));
 		float[] input = new float[]{
 			2, 1, 0,
 			2, 0, 1,
@@ -159,7 +160,7 @@ class ConvolutionalTest {
 
 		Convolutional dilated = new Convolutional.Builder().filterAmount(2).activationType(ActivationType.RELU).filterSize(3)
 			.initializer(new HeInitialization()).pad(2).stride(2).dilation(2).build();
-		dilated.setDimensions(new int[]{2, 3, 3}, UpdaterType.ADAM);
+		dilated.setDimensions(new int[]{2, 3, 3}, new UpdaterConfig(UpdaterType.ADAM));
 
 		updated = new float[]{
 			4, 2, 6,
@@ -4,17 +4,21 @@ import neuralnet.Model;
 import neuralnet.activations.ActivationType;
 import neuralnet.costs.CostType;
 import neuralnet.initializers.HeInitialization;
+import neuralnet.optimizers.UpdaterConfig;
 import neuralnet.optimizers.UpdaterType;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DenseTest {
 	@Test
 	void forwardTest() {
 		Dense dense = new Dense.Builder().outputSize(5).initializer(new HeInitialization()).activation(ActivationType.RELU).build();
-		dense.setDimensions(new int[]{2}, UpdaterType.AMSGRAD);
+		dense.setDimensions(new int[]{2}, new UpdaterConfig(UpdaterType.AMSGRAD));
 		float[] updated = new float[]
 			{1, 2, 1, 0, 1, 1, 0, 0, 1, 2};
 		float[] biases = new float[]{1, 0, 2, 1, 1};
@@ -39,4 +43,47 @@ class DenseTest {
 		assertTrue(model.gradientCheck(new float[]{0.2f, 0.8f, 0.3f, 0.7f}, new float[]{0.3f, 0.1f, 0.3f, 0.2f, 0.1f,
 			0.3f, 0.1f, 0.3f, 0.2f, 0.1f}, 2));
 	}
+
+	private static Model createModel() {
+		return new Model.Builder()
+			.add(new Dense.Builder().outputSize(5).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.add(new Dense.Builder().outputSize(3).activation(ActivationType.SIGMOID).initializer(new HeInitialization()).build())
+			.inputDimensions(2).cost(CostType.MEAN_SQUARE_ERROR).updaterType(UpdaterType.ADAM).build();
+	}
+
+	@Test
+	void accumulationTest() {
+		float[] input = new float[]{0.2f, 0.8f, 0.3f, 0.7f, 0.9f, 0.1f, 0.5f, 0.4f};
+		float[] target = new float[]{0.3f, 0.1f, 0.3f, 0.2f, 0.1f, 0.3f, 0.1f, 0.3f, 0.2f, 0.5f, 0.6f, 0.4f};
+
+		Model batch = createModel();
+		Model micro = createModel();
+
+		float[] parameters = new float[batch.getArena().size()];
+		batch.getArena().read(parameters);
+		micro.getArena().write(parameters);
+
+		batch.setMode(Layer.Mode.TRAIN);
+		micro.setMode(Layer.Mode.TRAIN);
+
+		batch.forward(input, 4);
+		batch.backward(target);
+
+		// two micro-batches of two samples sum to the gradients of the whole batch
+		for (int b = 0; b < 4; b += 2) {
+			micro.forward(Arrays.copyOfRange(input, b * 2, (b + 2) * 2), 2);
+			micro.backward(Arrays.copyOfRange(target, b * 3, (b + 2) * 3));
+		}
+
+		float[] gradient = micro.getLayer(0).getParameters()[0][1];
+		for (int i = 0; i < 2; i++) {
+			for (int j = 0; j < 2; j++)
+				assertArrayEquals(batch.getLayer(i).getParameters()[j][1], micro.getLayer(i).getParameters()[j][1], 1e-6f);
+		}
+
+		// gradient buffers are zeroed in place after an update
+		micro.update(4);
+		assertSame(gradient, micro.getLayer(0).getParameters()[0][1]);
+		assertArrayEquals(new float[gradient.length], gradient);
+	}
 }
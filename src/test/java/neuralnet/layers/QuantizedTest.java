@@ -0,0 +1,145 @@
+package neuralnet.layers;
+
+import neuralnet.activations.ActivationType;
+import neuralnet.initializers.HeInitialization;
+import neuralnet.optimizers.UpdaterConfig;
+import neuralnet.optimizers.UpdaterType;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedTest {
+	private static float[] random(Random random, int length) {
+		float[] values = new float[length];
+		for (int i = 0; i < length; i++)
+			values[i] = (float) random.nextGaussian();
+
+		return values;
+	}
+
+	private static float max(float[] values) {
+		float max = 0;
+		for (float value : values)
+			max = Math.max(max, Math.abs(value));
+
+		return max;
+	}
+
+	private static void assertClose(float[] expected, float[] actual) {
+		// int8 keeps about two significant digits
+		float tolerance = max(expected) * 0.02f;
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i], actual[i], tolerance);
+	}
+
+	private static Dense createDense(Random random) {
+		Dense dense = new Dense.Builder().outputSize(20).activation(ActivationType.IDENTITY).initializer(new HeInitialization()).build();
+		dense.setDimensions(new int[]{50}, new UpdaterConfig(UpdaterType.ADAM));
+
+		for (float[][] parameters : dense.getParameters())
+			System.arraycopy(random(random, parameters[0].length), 0, parameters[0], 0, parameters[0].length);
+
+		return dense;
+	}
+
+	@Test
+	void dense() {
+		Random random = new Random(0);
+		Dense dense = createDense(random);
+		float[] weights = dense.getParameters()[0][0];
+		float[] biases = dense.getParameters()[1][0];
+
+		int batchSize = 4;
+		float[] input = random(random, batchSize * 50);
+
+		float[] expected = new float[batchSize * 20];
+		for (int b = 0; b < batchSize; b++) {
+			for (int i = 0; i < 20; i++) {
+				expected[i + 20 * b] = biases[i];
+				for (int j = 0; j < 50; j++)
+					expected[i + 20 * b] += weights[j + 50 * i] * input[j + 50 * b];
+			}
+		}
+
+		assertClose(expected, dense.quantize(max(input)).forward(input, batchSize));
+	}
+
+	@Test
+	void convolutional() {
+		Random random = new Random(0);
+		int depth = 2, size = 9, filterAmount = 3, filterSize = 3, pad = 1, stride = 2, dilation = 2;
+
+		Convolutional convolutional = new Convolutional.Builder().filterAmount(filterAmount).filterSize(filterSize).pad(pad)
+			.stride(stride).dilation(dilation).activationType(ActivationType.IDENTITY).initializer(new HeInitialization()).build();
+		convolutional.setDimensions(new int[]{depth, size, size}, new UpdaterConfig(UpdaterType.ADAM));
+
+		float[] filters = convolutional.getParameters()[0][0];
+		float[] biases = convolutional.getParameters()[1][0];
+		System.arraycopy(random(random, filters.length), 0, filters, 0, filters.length);
+		System.arraycopy(random(random, biases.length), 0, biases, 0, biases.length);
+
+		int batchSize = 2;
+		float[] input = random(random, batchSize * depth * size * size);
+
+		int[] dimensions = convolutional.getOutputDimensions();
+		int outputSize = dimensions[1];
+		float[] expected = new float[batchSize * filterAmount * outputSize * outputSize];
+
+		// a direct convolution, with zeros outside of the input
+		for (int b = 0; b < batchSize; b++) {
+			for (int f = 0; f < filterAmount; f++) {
+				for (int i = 0; i < outputSize; i++) {
+					for (int j = 0; j < outputSize; j++) {
+						float sum = biases[f];
+						for (int k = 0; k < depth; k++) {
+							for (int m = 0; m < filterSize; m++) {
+								for (int n = 0; n < filterSize; n++) {
+									int h = i * stride + m * dilation - pad;
+									int w = j * stride + n * dilation - pad;
+
+									if (h >= 0 && h < size && w >= 0 && w < size)
+										sum += filters[n + filterSize * (m + filterSize * (k + depth * f))]
+											* input[w + size * (h + size * (k + depth * b))];
+								}
+							}
+						}
+
+						expected[j + outputSize * (i + outputSize * (f + filterAmount * b))] = sum;
+					}
+				}
+			}
+		}
+
+		Layer quantized = convolutional.quantize(max(input));
+		assertArrayEquals(dimensions, quantized.getOutputDimensions());
+		assertClose(expected, quantized.forward(input, batchSize));
+	}
+
+	@Test
+	void export() throws IOException {
+		Random random = new Random(0);
+		Layer quantized = createDense(random).quantize(3);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			quantized.getType().export(dos);
+			quantized.export(dos);
+		}
+
+		// a byte for each weight, instead of four
+		assertTrue(bos.size() < 50 * 20 + 20 * 8 + 64);
+
+		Layer imported;
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			imported = LayerType.fromString(dis, null);
+		}
+
+		float[] input = random(random, 3 * 50);
+		assertArrayEquals(quantized.forward(input, 3), imported.forward(input, 3));
+	}
+}
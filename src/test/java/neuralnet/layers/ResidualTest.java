@@ -1,6 +1,7 @@
 package neuralnet.layers;
 
 import neuralnet.initializers.HeInitialization;
+import neuralnet.optimizers.UpdaterConfig;
 import neuralnet.optimizers.UpdaterType;
 import org.junit.jupiter.api.Test;
 
@@ -12,7 +13,7 @@ class ResidualTest {
 	void forward() {
 		Residual residual =
 			new Residual.Builder().filterAmount(64).initializer(new HeInitialization()).outputDepth(128).build();
-		residual.setDimensions(new int[]{28, 28, 3}, UpdaterType.ADAM);
+		residual.setDimensions(new int[]{28, 28, 3}, new UpdaterConfig(UpdaterType.ADAM));
 
 		float[] input = new float[28 * 28 * 3];
 		for (int i = 0; i < input.length; i++)
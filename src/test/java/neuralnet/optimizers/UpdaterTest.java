@@ -0,0 +1,283 @@
+package neuralnet.optimizers;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdaterTest {
+	// larger than a chunk, so updates run in parallel
+	private static final int SIZE = 40000;
+	private static final int STEPS = 5;
+	private static final int SCALE = 4;
+
+	private static float[][] gradients() {
+		Random random = new Random(0);
+
+		float[][] gradients = new float[STEPS][SIZE];
+		for (float[] gradient : gradients) {
+			for (int i = 0; i < SIZE; i++)
+				gradient[i] = (float) random.nextGaussian();
+		}
+
+		return gradients;
+	}
+
+	private static float[] parameters() {
+		Random random = new Random(1);
+
+		float[] parameters = new float[SIZE];
+		for (int i = 0; i < SIZE; i++)
+			parameters[i] = random.nextFloat();
+
+		return parameters;
+	}
+
+	@Test
+	void adam() {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.ADAM);
+		config.init(0.9f, 0.999f, 1e-8f);
+		config.init(0.01f);
+
+		float[][] gradients = gradients();
+		float[] parameters = parameters();
+		float[] expected = parameters.clone();
+
+		Updater updater = config.create(SIZE, false);
+		double[] m = new double[SIZE], v = new double[SIZE];
+
+		for (int t = 1; t <= STEPS; t++) {
+			updater.update(parameters, gradients[t - 1], SCALE);
+
+			for (int i = 0; i < SIZE; i++) {
+				double g = gradients[t - 1][i] / SCALE;
+				m[i] = 0.9 * m[i] + 0.1 * g;
+				v[i] = 0.999 * v[i] + 0.001 * g * g;
+				expected[i] -= 0.01 * (m[i] / (1 - Math.pow(0.9, t))) / (Math.sqrt(v[i] / (1 - Math.pow(0.999, t))) + 1e-8);
+			}
+		}
+
+		for (int i = 0; i < SIZE; i++)
+			assertEquals(expected[i], parameters[i], 1e-5f);
+	}
+
+	@Test
+	void amsGrad() {
+		// each partial of the fast paths, then one raised with pow
+		for (float partial : new float[]{0.5f, 0.25f, 0.125f, 0.1f})
+			amsGrad(partial);
+	}
+
+	private static void amsGrad(float partial) {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.AMSGRAD);
+		config.init(0.9f, 0.999f, 1e-8f, partial);
+		config.init(0.01f);
+		config.setDecay(0.001f);
+
+		float[][] gradients = gradients();
+		float[] parameters = parameters();
+		float[] expected = parameters.clone();
+
+		Updater updater = config.create(SIZE, true);
+		double[] m = new double[SIZE], v = new double[SIZE];
+
+		for (int t = 1; t <= STEPS; t++) {
+			updater.update(parameters, gradients[t - 1], SCALE);
+
+			double corrected = 0.01 * Math.sqrt(1 - Math.pow(0.999, t)) / Math.sqrt(1 - Math.pow(0.9, t));
+			for (int i = 0; i < SIZE; i++) {
+				double g = gradients[t - 1][i] / SCALE;
+				m[i] = 0.9 * m[i] + 0.1 * g;
+				v[i] = Math.max(v[i], 0.999 * v[i] + 0.001 * g * g);
+				expected[i] -= corrected * (m[i] / Math.pow(Math.sqrt(v[i]) + 1e-8, partial * 2) + 0.001 * expected[i]);
+			}
+		}
+
+		for (int i = 0; i < SIZE; i++)
+			assertEquals(expected[i], parameters[i], 1e-5f);
+	}
+
+	@Test
+	void export() throws IOException {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.AMSGRAD);
+		config.init(0.8f, 0.99f, 1e-6f, 0.5f);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			config.export(dos);
+		}
+
+		UpdaterConfig imported;
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			imported = UpdaterConfig.fromString(dis);
+		}
+
+		assertEquals(UpdaterType.AMSGRAD, imported.getUpdaterType());
+		assertEquals(0.8f, imported.getBeta1());
+		assertEquals(0.5f, imported.getPartial());
+	}
+
+	@Test
+	void exportTrustRatio() throws IOException {
+		for (UpdaterType updaterType : new UpdaterType[]{UpdaterType.LARS, UpdaterType.LAMB}) {
+			UpdaterConfig config = new UpdaterConfig(updaterType);
+			config.init(0.5f);
+			config.init(0.8f, updaterType == UpdaterType.LARS ? 0.01f : 0.99f, 1e-6f);
+
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			try (DataOutputStream dos = new DataOutputStream(bos)) {
+				config.export(dos);
+			}
+
+			UpdaterConfig imported;
+			try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+				imported = UpdaterConfig.fromString(dis);
+			}
+
+			// both updaters are trained with the same hyper-parameters after importing
+			assertEquals(updaterType, imported.getUpdaterType());
+			assertEquals(0.5f, imported.getLearningRate());
+			assertEquals(config.getTrust(), imported.getTrust());
+		}
+	}
+
+	private static double norm(float[] values) {
+		double sum = 0;
+		for (float value : values)
+			sum += value * value;
+
+		return Math.sqrt(sum);
+	}
+
+	private static double stepNorm(UpdaterType updaterType, boolean decay) {
+		UpdaterConfig config = new UpdaterConfig(updaterType);
+		config.init(0.1f);
+		config.setDecay(0);
+
+		float[] parameters = parameters();
+		float[] before = parameters.clone();
+
+		config.create(SIZE, decay).update(parameters, gradients()[0], SCALE);
+
+		for (int i = 0; i < SIZE; i++)
+			before[i] -= parameters[i];
+
+		return norm(before) / norm(parameters());
+	}
+
+	@Test
+	void trustRatio() {
+		// the first update of LAMB is the learning rate times the norm of the parameters
+		assertEquals(0.1, stepNorm(UpdaterType.LAMB, true), 1e-4);
+
+		// LARS is also scaled by the trust coefficient
+		assertEquals(0.1 * 0.001, stepNorm(UpdaterType.LARS, true), 1e-6);
+
+		// tensors without decay are not scaled, so each LAMB update is about the learning rate
+		assertEquals(0.1, stepNorm(UpdaterType.LAMB, false) * norm(parameters()) / Math.sqrt(SIZE), 1e-2);
+	}
+
+	@Test
+	void exportLamb() throws IOException {
+		UpdaterConfig config = new UpdaterConfig(UpdaterType.LAMB);
+		Updater updater = config.create(SIZE, true);
+
+		float[] parameters = parameters();
+		updater.update(parameters, gradients()[0], SCALE);
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			updater.export(dos);
+		}
+
+		Updater imported;
+		try (DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			imported = config.create(dis);
+		}
+
+		// both updaters continue from the same state
+		float[] expected = parameters.clone();
+		updater.update(expected, gradients()[1], SCALE);
+		imported.update(parameters, gradients()[1], SCALE);
+
+		assertArrayEquals(expected, parameters);
+	}
+
+	// fits a noisy linear function with mean square error, decaying the learning rate linearly
+	private static float regression(UpdaterType updaterType, float learningRate, int batchSize) {
+		int features = 32, samples = 16384, epochs = 20;
+
+		Random random = new Random(0);
+		float[] solution = new float[features];
+		for (int j = 0; j < features; j++)
+			solution[j] = (float) random.nextGaussian();
+
+		float[][] inputs = new float[samples][features];
+		float[] targets = new float[samples];
+		for (int i = 0; i < samples; i++) {
+			for (int j = 0; j < features; j++) {
+				inputs[i][j] = (float) random.nextGaussian();
+				targets[i] += inputs[i][j] * solution[j];
+			}
+
+			targets[i] += 0.1f * (float) random.nextGaussian();
+		}
+
+		UpdaterConfig config = new UpdaterConfig(updaterType);
+		config.setDecay(0);
+		Updater updater = config.create(features, true);
+
+		float[] weights = new float[features];
+		for (int j = 0; j < features; j++)
+			weights[j] = 0.2f * (float) random.nextGaussian();
+
+		float[] gradient = new float[features];
+		int steps = epochs * samples / batchSize;
+		for (int step = 0; step < steps; step++) {
+			config.init(learningRate * (1 - (float) step / steps));
+			Arrays.fill(gradient, 0);
+
+			for (int i = (step * batchSize) % samples, end = i + batchSize; i < end; i++) {
+				float delta = -targets[i];
+				for (int j = 0; j < features; j++)
+					delta += inputs[i][j] * weights[j];
+
+				for (int j = 0; j < features; j++)
+					gradient[j] += 2 * delta * inputs[i][j];
+			}
+
+			updater.update(weights, gradient, batchSize);
+		}
+
+		double loss = 0;
+		for (int i = 0; i < samples; i++) {
+			float delta = -targets[i];
+			for (int j = 0; j < features; j++)
+				delta += inputs[i][j] * weights[j];
+
+			loss += delta * delta;
+		}
+
+		return (float) (loss / samples);
+	}
+
+	@Test
+	void largeBatch() {
+		float baseline = regression(UpdaterType.ADAM, 0.01f, 32);
+		float adam = regression(UpdaterType.ADAM, 0.01f, 4096);
+		float lamb = regression(UpdaterType.LAMB, 0.2f, 4096);
+		float lars = regression(UpdaterType.LARS, 20, 4096);
+
+		System.out.println("baseline: " + baseline + "\tadam: " + adam + "\tlamb: " + lamb + "\tlars: " + lars);
+
+		// with 128 times fewer steps, adam falls far behind, while layer-wise trust ratios stay close to the small batch baseline
+		assertTrue(adam > 10 * baseline);
+		assertTrue(lamb < 3 * baseline);
+		assertTrue(lars < 3 * baseline);
+	}
+}